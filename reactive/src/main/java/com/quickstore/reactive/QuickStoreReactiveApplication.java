@@ -0,0 +1,13 @@
+package com.quickstore.reactive;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.data.r2dbc.config.EnableR2dbcAuditing;
+
+@SpringBootApplication
+@EnableR2dbcAuditing
+public class QuickStoreReactiveApplication {
+    public static void main(String[] args) {
+        SpringApplication.run(QuickStoreReactiveApplication.class, args);
+    }
+}
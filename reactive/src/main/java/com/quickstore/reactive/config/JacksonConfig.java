@@ -0,0 +1,24 @@
+package com.quickstore.reactive.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Spring Boot 把容器中的 Jackson Module 注册到自动配置的 ObjectMapper 上,
+ * WebFlux 的 JSON 编解码器也使用这一个实例.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Blackbird 在运行时为 getter 和构造器生成调用类, 代替反射
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.jackson.blackbird.enabled", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
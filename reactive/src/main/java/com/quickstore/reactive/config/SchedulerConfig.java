@@ -0,0 +1,24 @@
+package com.quickstore.reactive.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+@Configuration
+@EnableScheduling
+public class SchedulerConfig {
+
+    /**
+     * BCrypt 专用调度器. 线程数默认等于 CPU 核数, 排队任务超过 queue-capacity 时拒绝, 与 Servlet 版本的线程池一致
+     */
+    @Bean(name = "passwordHashingScheduler", destroyMethod = "dispose")
+    public Scheduler passwordHashingScheduler(
+            @Value("${spring.security.password-hashing.pool-size:0}") int poolSize,
+            @Value("${spring.security.password-hashing.queue-capacity:100}") int queueCapacity) {
+        int threads = poolSize > 0 ? poolSize : Runtime.getRuntime().availableProcessors();
+        return Schedulers.newBoundedElastic(threads, queueCapacity, "pwd-hash");
+    }
+}
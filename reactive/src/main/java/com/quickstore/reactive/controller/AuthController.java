@@ -0,0 +1,162 @@
+package com.quickstore.reactive.controller;
+
+import com.quickstore.reactive.dto.LoginRequest;
+import com.quickstore.reactive.dto.LoginResponse;
+import com.quickstore.reactive.dto.RefreshTokenRequest;
+import com.quickstore.reactive.dto.RegisterRequest;
+import com.quickstore.reactive.model.User;
+import com.quickstore.reactive.security.JwtTokenProvider;
+import com.quickstore.reactive.security.LoginRateLimiter;
+import com.quickstore.reactive.security.PasswordHashingService;
+import com.quickstore.reactive.security.TokenRevocationRegistry;
+import com.quickstore.reactive.service.UserService;
+import io.jsonwebtoken.Claims;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+
+@RestController
+@RequestMapping("/auth")
+public class AuthController {
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
+    private final UserService userService;
+    private final PasswordHashingService passwordHashingService;
+    private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final LoginRateLimiter loginRateLimiter;
+
+    public AuthController(UserService userService, PasswordHashingService passwordHashingService,
+                          JwtTokenProvider tokenProvider, TokenRevocationRegistry revocationRegistry,
+                          LoginRateLimiter loginRateLimiter) {
+        this.userService = userService;
+        this.passwordHashingService = passwordHashingService;
+        this.tokenProvider = tokenProvider;
+        this.revocationRegistry = revocationRegistry;
+        this.loginRateLimiter = loginRateLimiter;
+    }
+
+    @PostMapping("/register")
+    public Mono<ResponseEntity<String>> register(@Valid @RequestBody RegisterRequest registerRequest) {
+        logger.debug("Attempting to register new user: {}", registerRequest.getUsername());
+
+        return userService.findByUsername(registerRequest.getUsername())
+                .map(existing -> {
+                    logger.warn("Registration failed: Username {} already exists", registerRequest.getUsername());
+                    return ResponseEntity.badRequest().body("Username already exists");
+                })
+                .switchIfEmpty(Mono.defer(() -> passwordHashingService.encode(registerRequest.getPassword())
+                        .flatMap(hash -> {
+                            User user = new User();
+                            user.setUsername(registerRequest.getUsername());
+                            user.setPasswordHash(hash);
+                            user.setFullName(registerRequest.getFullName());
+                            user.setRole(registerRequest.getRole());
+                            return userService.save(user);
+                        })
+                        .map(user -> {
+                            logger.info("User registered successfully: {}", user.getUsername());
+                            return ResponseEntity.ok("User registered successfully");
+                        })
+                        // 并发注册同名用户时由唯一约束兜底
+                        .onErrorResume(DataIntegrityViolationException.class, ex -> {
+                            logger.warn("Registration failed for {}: {}", registerRequest.getUsername(), ex.getMessage());
+                            return Mono.just(ResponseEntity.badRequest().body("Username already exists"));
+                        })));
+    }
+
+    @PostMapping("/login")
+    public Mono<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest,
+                                                     ServerWebExchange exchange) {
+        logger.debug("Attempting login for user: {}", loginRequest.getUsername());
+
+        // 限流检查在查询数据库和校验密码之前
+        long retryAfterSeconds = loginRateLimiter.tryAcquire(loginRequest.getUsername(), clientIp(exchange));
+        if (retryAfterSeconds > 0) {
+            logger.debug("Login throttled for user: {}", loginRequest.getUsername());
+            return Mono.just(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .build());
+        }
+
+        return userService.findByUsername(loginRequest.getUsername())
+                .filterWhen(user -> passwordHashingService.matches(loginRequest.getPassword(), user.getPasswordHash()))
+                .map(user -> {
+                    logger.debug("Login successful for user: {}", user.getUsername());
+                    String token = tokenProvider.generateToken(user);
+                    String refreshToken = tokenProvider.generateRefreshToken(user);
+                    return ResponseEntity.ok(new LoginResponse(token, user.getUsername(), user.getRole(), refreshToken));
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Login failed for user: {}", loginRequest.getUsername());
+                    return ResponseEntity.badRequest().build();
+                }));
+    }
+
+    @PostMapping("/refresh")
+    public Mono<ResponseEntity<LoginResponse>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        Claims claims = tokenProvider.parseToken(request.getRefreshToken());
+        if (claims == null || !tokenProvider.isRefreshToken(claims)) {
+            logger.warn("Token refresh failed: invalid refresh token");
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        Long userId = tokenProvider.getUserId(claims);
+        int tokenVersion = tokenProvider.getTokenVersion(claims);
+        if (revocationRegistry.isRevoked(userId, tokenVersion)) {
+            logger.warn("Token refresh failed: refresh token revoked for user id: {}", userId);
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        // 重新加载用户, 新的访问令牌使用当前的角色
+        return userService.findById(userId)
+                .map(user -> {
+                    // 内存吊销表最多落后一个同步周期, 以数据库中的令牌版本号为准
+                    if (user.getTokenVersion() != tokenVersion) {
+                        revocationRegistry.update(userId, user.getTokenVersion());
+                        logger.warn("Token refresh failed: refresh token version is stale for user id: {}", userId);
+                        return ResponseEntity.status(HttpStatus.UNAUTHORIZED).<LoginResponse>build();
+                    }
+                    // 每次刷新同时签发新的刷新令牌, 客户端应替换保存的旧令牌
+                    return ResponseEntity.ok(new LoginResponse(tokenProvider.generateToken(user),
+                            user.getUsername(), user.getRole(), tokenProvider.generateRefreshToken(user)));
+                })
+                .switchIfEmpty(Mono.fromSupplier(() -> {
+                    logger.warn("Token refresh failed: user not found with id: {}", userId);
+                    return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+                }));
+    }
+
+    @PostMapping("/logout")
+    public Mono<ResponseEntity<Void>> logout(Authentication authentication) {
+        if (authentication == null) {
+            return Mono.just(ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+        }
+
+        // 吊销该用户所有已签发的访问令牌和刷新令牌
+        return userService.findByUsername(authentication.getName())
+                .flatMap(user -> userService.revokeTokens(user.getId())
+                        .doOnSuccess(v -> logger.info("User logged out, tokens revoked: {}", user.getUsername())))
+                .thenReturn(ResponseEntity.ok().build());
+    }
+
+    // 与 Servlet 版本的 getRemoteAddr 一致, 不解析 X-Forwarded-For
+    private static String clientIp(ServerWebExchange exchange) {
+        InetSocketAddress remoteAddress = exchange.getRequest().getRemoteAddress();
+        if (remoteAddress == null) {
+            return "";
+        }
+        return remoteAddress.getAddress() != null ? remoteAddress.getAddress().getHostAddress()
+                : remoteAddress.getHostString();
+    }
+}
@@ -0,0 +1,162 @@
+package com.quickstore.reactive.controller;
+
+import com.quickstore.reactive.dto.ChangePasswordRequest;
+import com.quickstore.reactive.dto.ResetPasswordRequest;
+import com.quickstore.reactive.dto.UserSummary;
+import com.quickstore.reactive.dto.UserUpdateRequest;
+import com.quickstore.reactive.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+
+@RestController
+@RequestMapping("/users")
+public class UserController {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
+    private final UserService userService;
+
+    public UserController(UserService userService) {
+        this.userService = userService;
+    }
+
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<ResponseEntity<?>> getAllUsers(@RequestParam(defaultValue = UserService.SORT_BY_ID) String sort,
+                                               @RequestParam(required = false) String cursor,
+                                               @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                               @RequestParam(defaultValue = "false") boolean includeTotal) {
+        logger.debug("Attempting to get users page, sort: {}, limit: {}", sort, limit);
+
+        if (!UserService.SORT_BY_ID.equals(sort) && !UserService.SORT_BY_USERNAME.equals(sort)) {
+            return Mono.just(ResponseEntity.badRequest().body("Unsupported sort key: " + sort));
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return Mono.just(ResponseEntity.badRequest().body("Limit must be between 1 and " + MAX_PAGE_SIZE));
+        }
+
+        String after;
+        try {
+            after = decodeCursor(cursor);
+        } catch (IllegalArgumentException e) {
+            return Mono.just(ResponseEntity.badRequest().body("Invalid cursor"));
+        }
+
+        Mono<List<UserSummary>> page = userService.findUserSummaries(sort, after, limit).collectList();
+        Mono<Long> total = includeTotal ? userService.countUsers() : Mono.just(-1L);
+        return Mono.zip(page, total)
+                .<ResponseEntity<?>>map(result -> {
+                    List<UserSummary> users = result.getT1();
+                    logger.debug("Found {} users", users.size());
+
+                    // 游标和总数通过响应头返回, 响应体仍然是用户数组
+                    HttpHeaders headers = new HttpHeaders();
+                    if (users.size() == limit) {
+                        UserSummary last = users.get(users.size() - 1);
+                        String lastKey = UserService.SORT_BY_ID.equals(sort) ? String.valueOf(last.id()) : last.username();
+                        headers.add(NEXT_CURSOR_HEADER, encodeCursor(lastKey));
+                    }
+                    if (includeTotal) {
+                        headers.add(TOTAL_COUNT_HEADER, String.valueOf(result.getT2()));
+                    }
+                    return ResponseEntity.ok().headers(headers).body(users);
+                })
+                .onErrorResume(NumberFormatException.class, e -> Mono.just(ResponseEntity.badRequest().body("Invalid cursor")));
+    }
+
+    @PutMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<ResponseEntity<Void>> updateUser(@PathVariable Long id, @RequestBody UserUpdateRequest request) {
+        logger.debug("Attempting to update user with id: {}", id);
+
+        return userService.updateUser(id, request.getFullName(), request.getRole())
+                .map(updated -> {
+                    if (!updated) {
+                        logger.warn("User not found with id: {}", id);
+                        return ResponseEntity.notFound().build();
+                    }
+                    logger.info("User updated successfully: {}", id);
+                    return ResponseEntity.ok().build();
+                });
+    }
+
+    @DeleteMapping("/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<ResponseEntity<Void>> deleteUser(@PathVariable Long id) {
+        logger.debug("Attempting to delete user with id: {}", id);
+
+        return userService.deleteUser(id)
+                .map(deleted -> {
+                    if (!deleted) {
+                        logger.warn("User not found with id: {}", id);
+                        return ResponseEntity.notFound().build();
+                    }
+                    logger.info("User deleted successfully: {}", id);
+                    return ResponseEntity.ok().build();
+                });
+    }
+
+    @PostMapping("/change-password")
+    public Mono<ResponseEntity<?>> changePassword(Authentication authentication, @RequestBody ChangePasswordRequest request) {
+        String username = authentication.getName();
+        logger.debug("Attempting to change password for user: {}", username);
+
+        return userService.changePassword(username, request.getOldPassword(), request.getNewPassword())
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() -> {
+                    logger.info("Password changed successfully for user: {}", username);
+                    return ResponseEntity.ok().build();
+                }))
+                .onErrorResume(UserController::isBadRequest, e -> {
+                    logger.error("Failed to change password for user: {}", username, e);
+                    return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+                });
+    }
+
+    @PostMapping("/{id}/reset-password")
+    @PreAuthorize("hasRole('ADMIN')")
+    public Mono<ResponseEntity<?>> resetPassword(@PathVariable Long id, @RequestBody ResetPasswordRequest request) {
+        logger.debug("Attempting to reset password for user id: {}", id);
+
+        return userService.resetPassword(id, request.getNewPassword())
+                .then(Mono.<ResponseEntity<?>>fromSupplier(() -> {
+                    logger.info("Password reset successfully for user id: {}", id);
+                    return ResponseEntity.ok().build();
+                }))
+                .onErrorResume(UserController::isBadRequest, e -> {
+                    logger.error("Failed to reset password for user id: {}", id, e);
+                    return Mono.just(ResponseEntity.badRequest().body(e.getMessage()));
+                });
+    }
+
+    // 调度器饱和和并发修改交给 GlobalExceptionHandler 返回 503/409
+    private static boolean isBadRequest(Throwable e) {
+        return !(e instanceof RejectedExecutionException) && !(e instanceof OptimisticLockingFailureException);
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+}
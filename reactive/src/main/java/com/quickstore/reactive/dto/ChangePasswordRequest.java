@@ -0,0 +1,15 @@
+package com.quickstore.reactive.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+@Data
+public class ChangePasswordRequest {
+    @NotBlank(message = "旧密码不能为空")
+    private String oldPassword;
+
+    @NotBlank(message = "新密码不能为空")
+    @Size(min = 6, max = 40, message = "新密码长度必须在6-40之间")
+    private String newPassword;
+} 
\ No newline at end of file
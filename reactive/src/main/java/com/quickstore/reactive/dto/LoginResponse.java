@@ -0,0 +1,4 @@
+package com.quickstore.reactive.dto;
+
+public record LoginResponse(String token, String username, String role, String refreshToken) {
+}
@@ -0,0 +1,53 @@
+package com.quickstore.reactive.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+
+public class RegisterRequest {
+    @NotBlank(message = "用户名不能为空")
+    @Size(min = 3, max = 20, message = "用户名长度必须在3-20之间")
+    private String username;
+
+    @NotBlank(message = "密码不能为空")
+    @Size(min = 6, max = 40, message = "密码长度必须在6-40之间")
+    private String password;
+
+    @NotBlank(message = "全名不能为空")
+    private String fullName;
+
+    @Pattern(regexp = "^(admin|staff|warehouse)$", message = "角色必须是 admin、staff 或 warehouse 之一")
+    private String role = "staff"; // 默认角色为staff
+
+    public String getUsername() {
+        return username;
+    }
+
+    public void setUsername(String username) {
+        this.username = username;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public void setRole(String role) {
+        this.role = role;
+    }
+} 
\ No newline at end of file
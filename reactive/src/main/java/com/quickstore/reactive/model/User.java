@@ -0,0 +1,47 @@
+package com.quickstore.reactive.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.annotation.Version;
+import org.springframework.data.relational.core.mapping.Column;
+import org.springframework.data.relational.core.mapping.Table;
+
+import java.time.LocalDateTime;
+
+/**
+ * 与 Servlet 版本共用 users 表, 表结构由 Servlet 版本的 Flyway 迁移维护
+ */
+@Data
+@Table("users")
+public class User {
+    // 插入时不带 id, 由列默认值 nextval(users_id_seq) 生成; 与 Hibernate 的 pooled 号段互不重叠
+    @Id
+    private Long id;
+
+    private String username;
+
+    @Column("password_hash")
+    private String passwordHash;
+
+    @Column("full_name")
+    private String fullName;
+
+    private String role;
+
+    @Column("token_version")
+    private int tokenVersion;
+
+    @Version
+    private Long version;
+
+    // 由 R2DBC 审计填充, 见 @EnableR2dbcAuditing
+    @CreatedDate
+    @Column("created_at")
+    private LocalDateTime createdAt;
+
+    @LastModifiedDate
+    @Column("updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,71 @@
+package com.quickstore.reactive.repository;
+
+import com.quickstore.reactive.dto.UserSummary;
+import com.quickstore.reactive.model.User;
+import org.springframework.data.r2dbc.repository.Modifying;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.repository.reactive.ReactiveCrudRepository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * 与 Servlet 版本 UserRepository 相同的查询, 写操作同样是返回影响行数的单条语句
+ */
+public interface UserRepository extends ReactiveCrudRepository<User, Long> {
+
+    Mono<User> findByUsername(String username);
+
+    @Query("SELECT id, username, full_name, role, created_at FROM users WHERE id > :afterId ORDER BY id LIMIT :limit")
+    Flux<UserSummary> findSummariesAfterId(long afterId, int limit);
+
+    @Query("SELECT id, username, full_name, role, created_at FROM users WHERE username > :afterUsername " +
+            "ORDER BY username LIMIT :limit")
+    Flux<UserSummary> findSummariesAfterUsername(String afterUsername, int limit);
+
+    @Query("SELECT token_version FROM users WHERE id = :id")
+    Mono<Integer> findTokenVersionById(Long id);
+
+    // 吊销表只需要吊销过令牌的用户
+    @Query("SELECT id, token_version FROM users WHERE token_version > 0")
+    Flux<User> findRevokedTokenVersions();
+
+    // 由 users 表上的删除触发器写入, 见 Servlet 版本的 V8__deleted_users.sql
+    @Query("SELECT user_id FROM deleted_users")
+    Flux<Long> findDeletedUserIds();
+
+    @Modifying
+    @Query("DELETE FROM deleted_users WHERE deleted_at < localtimestamp - make_interval(secs => :seconds)")
+    Mono<Integer> deleteTombstonesOlderThan(long seconds);
+
+    @Modifying
+    @Query("UPDATE users SET token_version = token_version + 1, version = version + 1, updated_at = now() " +
+            "WHERE id = :id")
+    Mono<Integer> incrementTokenVersion(Long id);
+
+    // 角色不变时只更新姓名; 返回 0 表示用户不存在或角色已变化
+    @Modifying
+    @Query("UPDATE users SET full_name = :fullName, version = version + 1, updated_at = now() " +
+            "WHERE id = :id AND role = :role")
+    Mono<Integer> updateFullNameIfRoleUnchanged(Long id, String fullName, String role);
+
+    // 角色变化后旧令牌中的角色声明失效, 同一条语句中吊销令牌
+    @Modifying
+    @Query("UPDATE users SET full_name = :fullName, role = :role, token_version = token_version + 1, " +
+            "version = version + 1, updated_at = now() WHERE id = :id")
+    Mono<Integer> updateProfileAndRevokeTokens(Long id, String fullName, String role);
+
+    // 带版本号条件, 返回 0 表示用户已被并发修改
+    @Modifying
+    @Query("UPDATE users SET password_hash = :passwordHash, token_version = token_version + 1, " +
+            "version = version + 1, updated_at = now() WHERE id = :id AND version = :version")
+    Mono<Integer> updatePasswordHash(Long id, String passwordHash, long version);
+
+    @Modifying
+    @Query("UPDATE users SET password_hash = :passwordHash, token_version = token_version + 1, " +
+            "version = version + 1, updated_at = now() WHERE id = :id")
+    Mono<Integer> resetPasswordHash(Long id, String passwordHash);
+
+    @Modifying
+    @Query("DELETE FROM users WHERE id = :id")
+    Mono<Integer> deleteUserById(Long id);
+}
@@ -0,0 +1,76 @@
+package com.quickstore.reactive.security;
+
+import com.quickstore.reactive.repository.UserRepository;
+import io.jsonwebtoken.Claims;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import reactor.core.publisher.Mono;
+
+import java.util.Collections;
+
+/**
+ * Servlet 版本 JwtAuthenticationFilter 中的令牌校验逻辑: 校验签名, 拒绝刷新令牌, 检查内存中的吊销表,
+ * 无状态模式下直接用令牌中的角色声明构建用户, 旧令牌(无角色声明)才查询数据库.
+ * 传入的 Authentication 以令牌作为凭证, 令牌无效时以 BadCredentialsException 结束.
+ */
+@Component
+public class JwtAuthenticationManager implements ReactiveAuthenticationManager {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationManager.class);
+
+    private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final UserRepository userRepository;
+    private final boolean claimsOnly;
+
+    public JwtAuthenticationManager(JwtTokenProvider tokenProvider,
+                                    TokenRevocationRegistry revocationRegistry,
+                                    UserRepository userRepository,
+                                    @Value("${spring.security.jwt.claims-only:true}") boolean claimsOnly) {
+        this.tokenProvider = tokenProvider;
+        this.revocationRegistry = revocationRegistry;
+        this.userRepository = userRepository;
+        this.claimsOnly = claimsOnly;
+    }
+
+    @Override
+    public Mono<Authentication> authenticate(Authentication authentication) {
+        String jwt = (String) authentication.getCredentials();
+        Claims claims = tokenProvider.parseToken(jwt);
+        if (claims == null) {
+            return Mono.error(new BadCredentialsException("invalid or expired token"));
+        }
+        if (tokenProvider.isRefreshToken(claims)) {
+            return Mono.error(new BadCredentialsException("refresh token used as access token"));
+        }
+        if (revocationRegistry.isRevoked(tokenProvider.getUserId(claims), tokenProvider.getTokenVersion(claims))) {
+            return Mono.error(new BadCredentialsException("revoked token"));
+        }
+
+        String username = claims.getSubject();
+        String role = claims.get(JwtTokenProvider.CLAIM_ROLE, String.class);
+        if (claimsOnly && StringUtils.hasText(role)) {
+            return Mono.just(authenticated(username, role));
+        }
+
+        logger.debug("Loading user from database for token of: {}", username);
+        return userRepository.findByUsername(username)
+                .switchIfEmpty(Mono.error(new BadCredentialsException("user not found")))
+                .map(user -> authenticated(user.getUsername(), user.getRole()));
+    }
+
+    private static Authentication authenticated(String username, String role) {
+        User principal = new User(username, "",
+                Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
+        return UsernamePasswordAuthenticationToken.authenticated(principal, null, principal.getAuthorities());
+    }
+}
@@ -0,0 +1,94 @@
+package com.quickstore.reactive.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.context.ReactiveSecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 从 Authorization 头取出令牌交给 JwtAuthenticationManager. 与 Servlet 版本一致,
+ * 令牌无效时不直接返回 401, 而是以匿名身份继续, 由授权规则决定是否放行.
+ */
+@Component
+public class JwtAuthenticationWebFilter implements WebFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(JwtAuthenticationWebFilter.class);
+    private static final long REJECTION_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    private final JwtAuthenticationManager authenticationManager;
+    private final Timer authenticatedTimer;
+    private final Timer anonymousTimer;
+    private final AtomicLong nextRejectionLogAt = new AtomicLong(System.nanoTime());
+    private final AtomicLong suppressedRejections = new AtomicLong();
+
+    public JwtAuthenticationWebFilter(JwtAuthenticationManager authenticationManager, MeterRegistry meterRegistry) {
+        this.authenticationManager = authenticationManager;
+        this.authenticatedTimer = filterTimer(meterRegistry, "authenticated");
+        this.anonymousTimer = filterTimer(meterRegistry, "anonymous");
+    }
+
+    private static Timer filterTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("quickstore.jwt.filter")
+                .description("Time spent resolving the authenticated user from the bearer token")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String jwt = getJwtFromRequest(exchange);
+        if (jwt == null) {
+            return chain.filter(exchange);
+        }
+
+        long start = System.nanoTime();
+        return authenticationManager.authenticate(UsernamePasswordAuthenticationToken.unauthenticated(null, jwt))
+                .doOnNext(authentication -> authenticatedTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS))
+                .onErrorResume(AuthenticationException.class, ex -> {
+                    anonymousTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                    logRejectedToken(ex.getMessage());
+                    return Mono.empty();
+                })
+                // chain.filter 本身是空的 Mono, 用 thenReturn 区分 "已认证并执行" 和 "令牌无效", 避免过滤链执行两次
+                .flatMap(authentication -> chain.filter(exchange)
+                        .contextWrite(ReactiveSecurityContextHolder.withAuthentication(authentication))
+                        .thenReturn(Boolean.TRUE))
+                .switchIfEmpty(Mono.defer(() -> chain.filter(exchange).thenReturn(Boolean.TRUE)))
+                .then();
+    }
+
+    /**
+     * 无效令牌的日志按时间窗口限流, 每个窗口最多输出一条并附带被抑制的条数
+     */
+    private void logRejectedToken(String reason) {
+        long now = System.nanoTime();
+        long next = nextRejectionLogAt.get();
+        if (now - next >= 0 && nextRejectionLogAt.compareAndSet(next, now + REJECTION_LOG_INTERVAL_NANOS)) {
+            long count = suppressedRejections.getAndSet(0);
+            logger.warn("Rejected bearer token: {} ({} similar messages suppressed)", reason, count);
+        } else {
+            suppressedRejections.incrementAndGet();
+        }
+    }
+
+    private static String getJwtFromRequest(ServerWebExchange exchange) {
+        String bearerToken = exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
+            return bearerToken.substring(7);
+        }
+        return null;
+    }
+}
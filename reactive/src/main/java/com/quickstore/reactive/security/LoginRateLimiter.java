@@ -0,0 +1,127 @@
+package com.quickstore.reactive.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 登录限流: 按用户名和按客户端IP各一组令牌桶.
+ * 令牌桶存放在有容量上限的 Caffeine 缓存中 (分段的并发哈希表, 无全局锁), 长时间未访问的桶会被淘汰;
+ * 单个桶的状态通过 CAS 更新, 检查过程不阻塞, 可以直接在事件循环线程上调用. 与 Servlet 版本的实现相同.
+ */
+@Component
+public class LoginRateLimiter {
+
+    private final BucketGroup usernameBuckets;
+    private final BucketGroup ipBuckets;
+
+    public LoginRateLimiter(@Value("${spring.security.login-rate-limit.username.capacity:5}") int usernameCapacity,
+                            @Value("${spring.security.login-rate-limit.username.refill-per-minute:5}") int usernameRefill,
+                            @Value("${spring.security.login-rate-limit.ip.capacity:20}") int ipCapacity,
+                            @Value("${spring.security.login-rate-limit.ip.refill-per-minute:20}") int ipRefill,
+                            @Value("${spring.security.login-rate-limit.max-keys:100000}") long maxKeys,
+                            @Value("${spring.security.login-rate-limit.idle-timeout:10m}") Duration idleTimeout,
+                            MeterRegistry meterRegistry) {
+        this.usernameBuckets = new BucketGroup(usernameCapacity, usernameRefill, maxKeys, idleTimeout,
+                throttledCounter(meterRegistry, "username"));
+        this.ipBuckets = new BucketGroup(ipCapacity, ipRefill, maxKeys, idleTimeout,
+                throttledCounter(meterRegistry, "ip"));
+    }
+
+    private static Counter throttledCounter(MeterRegistry meterRegistry, String key) {
+        return Counter.builder("quickstore.login.throttled")
+                .description("Login attempts rejected by the rate limiter")
+                .tag("key", key)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 尝试为一次登录获取令牌. 允许时返回 0, 否则返回距离下一个可用令牌的秒数 (至少为 1)
+     */
+    public long tryAcquire(String username, String clientIp) {
+        long waitNanos = ipBuckets.tryAcquire(clientIp);
+        if (waitNanos == 0) {
+            waitNanos = usernameBuckets.tryAcquire(username == null ? "" : username.toLowerCase());
+            // 被用户名限流的请求退还 IP 令牌, 否则同一 NAT 后反复重试一个被锁账号会耗尽所有人的 IP 额度
+            if (waitNanos > 0) {
+                ipBuckets.refund(clientIp);
+            }
+        }
+        return waitNanos == 0 ? 0 : Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos + 999_999_999L));
+    }
+
+    private static final class BucketGroup {
+        private final int capacity;
+        private final double nanosPerToken;
+        private final Cache<String, TokenBucket> buckets;
+        private final Counter throttled;
+
+        BucketGroup(int capacity, int refillPerMinute, long maxKeys, Duration idleTimeout, Counter throttled) {
+            this.capacity = capacity;
+            this.nanosPerToken = (double) TimeUnit.MINUTES.toNanos(1) / refillPerMinute;
+            this.buckets = Caffeine.newBuilder()
+                    .maximumSize(maxKeys)
+                    .expireAfterAccess(idleTimeout)
+                    .build();
+            this.throttled = throttled;
+        }
+
+        long tryAcquire(String key) {
+            TokenBucket bucket = buckets.get(key, k -> new TokenBucket(capacity, System.nanoTime()));
+            long waitNanos = bucket.tryAcquire(capacity, nanosPerToken);
+            if (waitNanos > 0) {
+                throttled.increment();
+            }
+            return waitNanos;
+        }
+
+        void refund(String key) {
+            TokenBucket bucket = buckets.getIfPresent(key);
+            if (bucket != null) {
+                bucket.refund(capacity);
+            }
+        }
+    }
+
+    private static final class TokenBucket {
+        private final AtomicReference<State> state;
+
+        TokenBucket(int capacity, long now) {
+            this.state = new AtomicReference<>(new State(capacity, now));
+        }
+
+        long tryAcquire(int capacity, double nanosPerToken) {
+            while (true) {
+                State current = state.get();
+                long now = System.nanoTime();
+                double tokens = Math.min(capacity, current.tokens() + (now - current.refilledAt()) / nanosPerToken);
+                if (tokens < 1) {
+                    return (long) Math.ceil((1 - tokens) * nanosPerToken);
+                }
+                if (state.compareAndSet(current, new State(tokens - 1, now))) {
+                    return 0;
+                }
+            }
+        }
+
+        void refund(int capacity) {
+            while (true) {
+                State current = state.get();
+                State refunded = new State(Math.min(capacity, current.tokens() + 1), current.refilledAt());
+                if (state.compareAndSet(current, refunded)) {
+                    return;
+                }
+            }
+        }
+
+        private record State(double tokens, long refilledAt) {
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.quickstore.reactive.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+
+/**
+ * 在有界的 boundedElastic 调度器上执行密码哈希和校验, 不阻塞事件循环线程.
+ * 调度器的任务队列满时订阅会以 RejectedExecutionException 失败, 由 GlobalExceptionHandler 转为 503.
+ */
+@Component
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final Scheduler scheduler;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Qualifier("passwordHashingScheduler") Scheduler scheduler,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.scheduler = scheduler;
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("quickstore.password.hash")
+                .description("Password hashing time on the hashing scheduler, excluding queue wait")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    public Mono<String> encode(CharSequence rawPassword) {
+        return Mono.fromCallable(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)))
+                .subscribeOn(scheduler);
+    }
+
+    public Mono<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return Mono.fromCallable(() -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)))
+                .subscribeOn(scheduler);
+    }
+}
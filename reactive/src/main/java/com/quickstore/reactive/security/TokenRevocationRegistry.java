@@ -0,0 +1,32 @@
+package com.quickstore.reactive.security;
+
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 内存中的令牌吊销表: 用户ID -> 最小有效令牌版本. 版本号低于该值的令牌视为已吊销.
+ * 只有吊销过令牌的用户才会出现在表中, 检查是一次哈希查找, 不访问数据库.
+ */
+@Component
+public class TokenRevocationRegistry {
+
+    private final Map<Long, Integer> minTokenVersions = new ConcurrentHashMap<>();
+
+    public boolean isRevoked(Long userId, int tokenVersion) {
+        if (userId == null) {
+            return false;
+        }
+        Integer minVersion = minTokenVersions.get(userId);
+        return minVersion != null && tokenVersion < minVersion;
+    }
+
+    public void update(Long userId, int minTokenVersion) {
+        minTokenVersions.merge(userId, minTokenVersion, Math::max);
+    }
+
+    public int size() {
+        return minTokenVersions.size();
+    }
+}
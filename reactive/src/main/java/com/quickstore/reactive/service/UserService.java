@@ -0,0 +1,22 @@
+package com.quickstore.reactive.service;
+
+import com.quickstore.reactive.dto.UserSummary;
+import com.quickstore.reactive.model.User;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+public interface UserService {
+    String SORT_BY_ID = "id";
+    String SORT_BY_USERNAME = "username";
+
+    Mono<User> findByUsername(String username);
+    Mono<User> findById(Long id);
+    Mono<User> save(User user);
+    Flux<UserSummary> findUserSummaries(String sort, String after, int limit);
+    Mono<Long> countUsers();
+    Mono<Boolean> updateUser(Long id, String fullName, String role);
+    Mono<Boolean> deleteUser(Long id);
+    Mono<Void> revokeTokens(Long userId);
+    Mono<Void> changePassword(String username, String oldPassword, String newPassword);
+    Mono<Void> resetPassword(Long userId, String newPassword);
+}
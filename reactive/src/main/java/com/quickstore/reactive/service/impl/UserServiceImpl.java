@@ -0,0 +1,162 @@
+package com.quickstore.reactive.service.impl;
+
+import com.quickstore.reactive.dto.UserSummary;
+import com.quickstore.reactive.model.User;
+import com.quickstore.reactive.repository.UserRepository;
+import com.quickstore.reactive.security.PasswordHashingService;
+import com.quickstore.reactive.security.TokenRevocationRegistry;
+import com.quickstore.reactive.service.UserService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.TimeUnit;
+
+@Service
+public class UserServiceImpl implements UserService {
+
+    private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+
+    private final UserRepository userRepository;
+    private final PasswordHashingService passwordHashingService;
+    private final TokenRevocationRegistry revocationRegistry;
+    // 刷新令牌过期后被删除用户的令牌都已失效, 墓碑只需保留这么久
+    private final long tombstoneRetentionSeconds;
+
+    public UserServiceImpl(UserRepository userRepository, PasswordHashingService passwordHashingService,
+                           TokenRevocationRegistry revocationRegistry,
+                           @Value("${spring.security.jwt.refresh-expiration}") long refreshExpirationMillis) {
+        this.userRepository = userRepository;
+        this.passwordHashingService = passwordHashingService;
+        this.revocationRegistry = revocationRegistry;
+        this.tombstoneRetentionSeconds = TimeUnit.MILLISECONDS.toSeconds(refreshExpirationMillis);
+    }
+
+    @Override
+    public Mono<User> findByUsername(String username) {
+        return userRepository.findByUsername(username);
+    }
+
+    @Override
+    public Mono<User> findById(Long id) {
+        return userRepository.findById(id);
+    }
+
+    @Override
+    public Mono<User> save(User user) {
+        if (user.getRole() != null) {
+            user.setRole(user.getRole().toLowerCase());
+        }
+        return userRepository.save(user);
+    }
+
+    @Override
+    public Flux<UserSummary> findUserSummaries(String sort, String after, int limit) {
+        switch (sort) {
+            case SORT_BY_ID:
+                return userRepository.findSummariesAfterId(after == null ? 0L : Long.parseLong(after), limit);
+            case SORT_BY_USERNAME:
+                return userRepository.findSummariesAfterUsername(after == null ? "" : after, limit);
+            default:
+                return Flux.error(new IllegalArgumentException("Unsupported sort key: " + sort));
+        }
+    }
+
+    @Override
+    public Mono<Long> countUsers() {
+        return userRepository.count();
+    }
+
+    @Override
+    @Transactional
+    public Mono<Boolean> updateUser(Long id, String fullName, String role) {
+        String normalizedRole = role.toLowerCase();
+        return userRepository.updateFullNameIfRoleUnchanged(id, fullName, normalizedRole)
+                .flatMap(updated -> {
+                    if (updated > 0) {
+                        return Mono.just(true);
+                    }
+                    // 用户不存在或角色发生变化
+                    return userRepository.updateProfileAndRevokeTokens(id, fullName, normalizedRole)
+                            .flatMap(changed -> changed == 0
+                                    ? Mono.just(false)
+                                    : userRepository.findTokenVersionById(id)
+                                            .doOnNext(version -> revocationRegistry.update(id, version))
+                                            .thenReturn(true));
+                });
+    }
+
+    @Override
+    public Mono<Boolean> deleteUser(Long id) {
+        return userRepository.deleteUserById(id)
+                .map(deleted -> {
+                    if (deleted == 0) {
+                        return false;
+                    }
+                    revocationRegistry.update(id, Integer.MAX_VALUE);
+                    return true;
+                });
+    }
+
+    @Override
+    public Mono<Void> revokeTokens(Long userId) {
+        return userRepository.incrementTokenVersion(userId)
+                .filter(updated -> updated > 0)
+                .flatMap(updated -> userRepository.findTokenVersionById(userId))
+                .doOnNext(version -> revocationRegistry.update(userId, version))
+                .then();
+    }
+
+    /**
+     * 启动时立即从数据库重建吊销表, 之后定期同步其他实例 (包括 Servlet 版本) 上的吊销和删除
+     */
+    @Scheduled(fixedDelayString = "${spring.security.jwt.revocation-sync-interval:60000}")
+    public Mono<Void> syncTokenRevocations() {
+        return userRepository.findRevokedTokenVersions()
+                .doOnNext(user -> revocationRegistry.update(user.getId(), user.getTokenVersion()))
+                .thenMany(userRepository.findDeletedUserIds())
+                .doOnNext(userId -> revocationRegistry.update(userId, Integer.MAX_VALUE))
+                .then(userRepository.deleteTombstonesOlderThan(tombstoneRetentionSeconds))
+                .then(Mono.fromRunnable(() ->
+                        logger.debug("Token revocation registry synced, {} users", revocationRegistry.size())));
+    }
+
+    @Override
+    public Mono<Void> changePassword(String username, String oldPassword, String newPassword) {
+        return findByUsername(username)
+                .switchIfEmpty(Mono.error(() -> new UsernameNotFoundException("User not found with username: " + username)))
+                .flatMap(user -> passwordHashingService.matches(oldPassword, user.getPasswordHash())
+                        .flatMap(matches -> matches
+                                ? passwordHashingService.encode(newPassword)
+                                : Mono.error(new BadCredentialsException("Invalid old password")))
+                        // 校验旧密码时读到的版本号作为条件, 期间被修改过则放弃本次更新
+                        .flatMap(hash -> userRepository.updatePasswordHash(user.getId(), hash, user.getVersion()))
+                        .flatMap(updated -> {
+                            if (updated == 0) {
+                                return Mono.error(new OptimisticLockingFailureException(
+                                        "User " + user.getId() + " was modified concurrently"));
+                            }
+                            revocationRegistry.update(user.getId(), user.getTokenVersion() + 1);
+                            return Mono.<Void>empty();
+                        }));
+    }
+
+    @Override
+    public Mono<Void> resetPassword(Long userId, String newPassword) {
+        return passwordHashingService.encode(newPassword)
+                .flatMap(hash -> userRepository.resetPasswordHash(userId, hash))
+                .flatMap(updated -> updated == 0
+                        ? Mono.error(new UsernameNotFoundException("User not found with id: " + userId))
+                        : userRepository.findTokenVersionById(userId))
+                .doOnNext(version -> revocationRegistry.update(userId, version))
+                .then();
+    }
+}
@@ -0,0 +1,62 @@
+#!/usr/bin/env bash
+# 对比 Servlet (Tomcat + JPA) 和响应式 (WebFlux + R2DBC, reactive/ 模块) 两个版本在高并发连接下
+# /users 和 /auth/login 的吞吐与延迟. 两个版本依次启动, 不会同时争用 CPU.
+# 依赖: hey (https://github.com/rakyll/hey), 可用的 PostgreSQL 以及一个管理员账号.
+#
+#   ADMIN_USER=admin ADMIN_PASSWORD=admin123 CONCURRENCY=2000 scripts/compare-stacks.sh
+set -euo pipefail
+
+ADMIN_USER=${ADMIN_USER:-admin}
+ADMIN_PASSWORD=${ADMIN_PASSWORD:-admin123}
+REQUESTS=${REQUESTS:-50000}
+CONCURRENCY=${CONCURRENCY:-1000}
+OUT_DIR=${OUT_DIR:-target/stacks}
+
+command -v hey >/dev/null || { echo "hey is required" >&2; exit 1; }
+
+mvn -B -q -DskipTests package
+mvn -B -q -f reactive/pom.xml -DskipTests package
+SERVLET_JAR=$(ls target/quickstore-backend-*.jar | grep -v -e original -e cds | head -n 1)
+REACTIVE_JAR=$(ls reactive/target/quickstore-reactive-*.jar | grep -v original | head -n 1)
+mkdir -p "$OUT_DIR"
+
+run_stack() {
+    local stack=$1 jar=$2 port=$3
+    shift 3
+    local base_url="http://localhost:${port}/api"
+    echo "== ${stack}"
+    java -jar "$jar" --server.port="$port" --logging.level.com.quickstore=INFO "$@" > "$OUT_DIR/${stack}-app.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" RETURN
+
+    until curl -s -o /dev/null "$base_url/actuator/health/readiness"; do sleep 1; done
+
+    local login_body="{\"username\":\"${ADMIN_USER}\",\"password\":\"${ADMIN_PASSWORD}\"}"
+    local token
+    token=$(curl -s -H 'Content-Type: application/json' -d "$login_body" "$base_url/auth/login" \
+        | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+    # 预热 JIT 和连接池
+    hey -n 2000 -c 50 -H "Authorization: Bearer ${token}" "$base_url/users" > /dev/null
+
+    hey -n "$REQUESTS" -c "$CONCURRENCY" -H "Authorization: Bearer ${token}" \
+        "$base_url/users" > "$OUT_DIR/${stack}-users.txt"
+    hey -n $((REQUESTS / 10)) -c "$CONCURRENCY" -m POST -T application/json -d "$login_body" \
+        "$base_url/auth/login" > "$OUT_DIR/${stack}-login.txt"
+
+    for endpoint in users login; do
+        echo "-- ${endpoint}"
+        # 输出全部状态码和错误分布, 不只是 200/429/503
+        grep -E 'Requests/sec|Average|99%|\[[0-9]+\]|Error distribution' "$OUT_DIR/${stack}-${endpoint}.txt" || true
+    done
+}
+
+# 两个版本都有登录限流, 压测时放开, 否则登录结果大部分是 429
+NO_LOGIN_LIMIT=(
+    --spring.security.login-rate-limit.username.capacity=1000000000
+    --spring.security.login-rate-limit.username.refill-per-minute=1000000000
+    --spring.security.login-rate-limit.ip.capacity=1000000000
+    --spring.security.login-rate-limit.ip.refill-per-minute=1000000000
+)
+run_stack servlet "$SERVLET_JAR" 8080 "${NO_LOGIN_LIMIT[@]}"
+run_stack reactive "$REACTIVE_JAR" 8081 "${NO_LOGIN_LIMIT[@]}"
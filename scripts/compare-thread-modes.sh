@@ -0,0 +1,63 @@
+#!/usr/bin/env bash
+# 对比平台线程和虚拟线程两种模式下 /auth/login 和 /users 的吞吐与延迟.
+# 依赖: Java 21, hey (https://github.com/rakyll/hey), 可用的 PostgreSQL 以及一个管理员账号.
+#
+#   ADMIN_USER=admin ADMIN_PASSWORD=admin123 scripts/compare-thread-modes.sh
+set -euo pipefail
+
+ADMIN_USER=${ADMIN_USER:-admin}
+ADMIN_PASSWORD=${ADMIN_PASSWORD:-admin123}
+REQUESTS=${REQUESTS:-20000}
+CONCURRENCY=${CONCURRENCY:-200}
+PORT=${PORT:-8080}
+BASE_URL="http://localhost:${PORT}/api"
+OUT_DIR=${OUT_DIR:-target/thread-modes}
+
+command -v hey >/dev/null || { echo "hey is required" >&2; exit 1; }
+
+mvn -B -q -Pjava21 -DskipTests package
+JAR=$(ls target/quickstore-backend-*.jar | grep -v original | head -n 1)
+mkdir -p "$OUT_DIR"
+
+# 所有登录都来自同一个账号和 IP, 压测时放开登录限流, 否则登录结果大部分是 429
+NO_LOGIN_LIMIT=(
+    --spring.security.login-rate-limit.username.capacity=1000000000
+    --spring.security.login-rate-limit.username.refill-per-minute=1000000000
+    --spring.security.login-rate-limit.ip.capacity=1000000000
+    --spring.security.login-rate-limit.ip.refill-per-minute=1000000000
+)
+
+run_mode() {
+    local mode=$1 profile=$2 extra_opts=$3
+    echo "== ${mode}"
+    SPRING_PROFILES_ACTIVE=$profile java $extra_opts -jar "$JAR" --server.port="$PORT" "${NO_LOGIN_LIMIT[@]}" \
+        > "$OUT_DIR/${mode}-app.log" 2>&1 &
+    local pid=$!
+    trap "kill $pid 2>/dev/null || true" RETURN
+
+    until curl -s -o /dev/null "$BASE_URL/auth/login"; do sleep 1; done
+
+    local login_body="{\"username\":\"${ADMIN_USER}\",\"password\":\"${ADMIN_PASSWORD}\"}"
+    local token
+    token=$(curl -s -H 'Content-Type: application/json' -d "$login_body" "$BASE_URL/auth/login" \
+        | sed -E 's/.*"token":"([^"]+)".*/\1/')
+
+    hey -n "$REQUESTS" -c "$CONCURRENCY" -H "Authorization: Bearer ${token}" \
+        "$BASE_URL/users" > "$OUT_DIR/${mode}-users.txt"
+    hey -n $((REQUESTS / 10)) -c "$CONCURRENCY" -m POST -T application/json -d "$login_body" \
+        "$BASE_URL/auth/login" > "$OUT_DIR/${mode}-login.txt"
+
+    for endpoint in users login; do
+        echo "-- ${endpoint}"
+        # 输出全部状态码和错误分布, 不只是 200/503
+        grep -E 'Requests/sec|Average|99%|\[[0-9]+\]|Error distribution' "$OUT_DIR/${mode}-${endpoint}.txt" || true
+    done
+}
+
+run_mode platform dev ""
+# jdk.tracePinnedThreads 会在虚拟线程被固定到载体线程时打印堆栈, 结果见 virtual-app.log
+run_mode virtual dev,virtual-threads "-Djdk.tracePinnedThreads=short"
+
+if grep -q "onPinned\|<== monitors" "$OUT_DIR/virtual-app.log"; then
+    echo "WARNING: pinned virtual threads detected, see $OUT_DIR/virtual-app.log"
+fi
@@ -0,0 +1,68 @@
+#!/usr/bin/env bash
+# 测量启动时间: 每种模式启动若干次, 记录 "Started QuickStoreApplication ... (process running for X)"
+# 中的 JVM 运行时间 (从 JVM 启动到可以接收请求), 取中位数写入 target/startup/startup-result.json.
+# 由 startup Maven profile 在 verify 阶段调用, 也可以单独运行 (需要先 mvn -Pstartup package):
+#
+#   RUNS=5 STARTUP_MAX_SECONDS=8 scripts/measure-startup.sh
+#
+# 依赖可用的 PostgreSQL. STARTUP_MAX_SECONDS 大于 0 时, cds 模式的中位数超过该值则失败.
+set -euo pipefail
+
+RUNS=${RUNS:-5}
+STARTUP_MAX_SECONDS=${STARTUP_MAX_SECONDS:-0}
+OUT_DIR=${OUT_DIR:-target/startup}
+JAR=$(ls target/quickstore-backend-*.jar | grep -v -e original -e cds | head -n 1)
+CDS_JAR=$(ls target/cds/quickstore-backend-*-cds.jar | head -n 1)
+CDS_ARCHIVE=target/cds/quickstore.jsa
+mkdir -p "$OUT_DIR"
+
+# 启动一次应用, 输出 JVM 运行时间 (秒)
+start_once() {
+    local log=$1; shift
+    java "$@" --server.port=0 > "$log" 2>&1 &
+    local pid=$!
+    for _ in $(seq 300); do
+        if grep -q "Started QuickStoreApplication" "$log"; then break; fi
+        if ! kill -0 "$pid" 2>/dev/null; then break; fi
+        sleep 0.1
+    done
+    kill "$pid" 2>/dev/null || true
+    wait "$pid" 2>/dev/null || true
+    local seconds
+    seconds=$(sed -nE 's/.*Started QuickStoreApplication in .* \(process running for ([0-9.]+)\).*/\1/p' "$log")
+    if [ -z "$seconds" ]; then
+        echo "Application failed to start, see $log" >&2
+        exit 1
+    fi
+    echo "$seconds"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { if (NR % 2) print v[(NR + 1) / 2]; else print (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+run_mode() {
+    local mode=$1; shift
+    local times=()
+    for i in $(seq "$RUNS"); do
+        times+=("$(start_once "$OUT_DIR/${mode}-${i}.log" "$@")")
+    done
+    local result
+    result=$(printf '%s\n' "${times[@]}" | median)
+    echo "${mode}: median ${result}s (${times[*]})" >&2
+    echo "$result"
+}
+
+jar=$(run_mode jar -jar "$JAR")
+aot=$(run_mode aot -Dspring.aot.enabled=true -jar "$CDS_JAR")
+cds=$(run_mode cds -XX:SharedArchiveFile="$CDS_ARCHIVE" -Xshare:auto -Dspring.aot.enabled=true -jar "$CDS_JAR")
+
+cat > "$OUT_DIR/startup-result.json" <<JSON
+{"runs": ${RUNS}, "jar": ${jar}, "aot": ${aot}, "cds": ${cds}}
+JSON
+echo "Startup result written to $OUT_DIR/startup-result.json"
+
+if awk -v t="$cds" -v max="$STARTUP_MAX_SECONDS" 'BEGIN { exit !(max > 0 && t > max) }'; then
+    echo "Startup regression: cds median ${cds}s exceeds ${STARTUP_MAX_SECONDS}s" >&2
+    exit 1
+fi
@@ -0,0 +1,112 @@
+package com.quickstore.benchmark;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.quickstore.dto.LoginResponse;
+import com.quickstore.dto.UserSummary;
+import com.quickstore.model.User;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 旧的响应方式 (JPA 实体 + 反射) 与现在的方式 (record DTO + Blackbird + 复用的 ObjectWriter) 对比.
+ * serializeEntityList 是改动前控制器直接返回实体列表的开销, 也会输出 passwordHash 等内部字段.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonSerializationBenchmark {
+
+    private ObjectMapper reflectionMapper;
+    private ObjectMapper blackbirdMapper;
+    private ObjectWriter summaryListWriter;
+    private User user;
+    private LoginResponse loginResponse;
+
+    @Setup
+    public void setup() {
+        // 与 Spring Boot 默认的 ObjectMapper 配置保持一致. 不能用 findAndRegisterModules,
+        // Blackbird 也通过 ServiceLoader 注册, 会让两组对比使用同一配置
+        reflectionMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        blackbirdMapper = reflectionMapper.copy().registerModule(new BlackbirdModule());
+        summaryListWriter = blackbirdMapper.writerFor(new TypeReference<List<UserSummary>>() { });
+
+        user = newUser(1);
+        loginResponse = new LoginResponse("eyJhbGciOiJIUzI1NiJ9.eyJzdWIiOiJhZG1pbiJ9.signature", "admin", "admin",
+                "eyJhbGciOiJIUzI1NiJ9.eyJ0eXAiOiJyZWZyZXNoIn0.signature");
+    }
+
+    // 只有列表基准使用 listSize, 单个对象的基准不随它重复运行
+    @State(Scope.Benchmark)
+    public static class UserList {
+
+        @Param({"100", "1000", "10000"})
+        private int listSize;
+
+        private List<User> entities;
+        private List<UserSummary> summaries;
+
+        @Setup
+        public void setup() {
+            entities = new ArrayList<>(listSize);
+            summaries = new ArrayList<>(listSize);
+            for (long i = 0; i < listSize; i++) {
+                User entity = newUser(i);
+                entities.add(entity);
+                summaries.add(new UserSummary(entity.getId(), entity.getUsername(), entity.getFullName(),
+                        entity.getRole(), entity.getCreatedAt()));
+            }
+        }
+    }
+
+    private static User newUser(long id) {
+        User user = new User();
+        user.setId(id);
+        user.setUsername("user" + id);
+        user.setPasswordHash("{bcrypt}$2a$10$abcdefghijklmnopqrstuuABCDEFGHIJKLMNOPQRSTUVWXYZ01234");
+        user.setFullName("User " + id);
+        user.setRole("staff");
+        user.setVersion(1);
+        user.setCreatedAt(LocalDateTime.now());
+        user.setUpdatedAt(user.getCreatedAt());
+        return user;
+    }
+
+    @Benchmark
+    public byte[] serializeUser() throws Exception {
+        return reflectionMapper.writeValueAsBytes(user);
+    }
+
+    @Benchmark
+    public byte[] serializeLoginResponse() throws Exception {
+        return blackbirdMapper.writeValueAsBytes(loginResponse);
+    }
+
+    @Benchmark
+    public byte[] serializeEntityList(UserList list) throws Exception {
+        return reflectionMapper.writeValueAsBytes(list.entities);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaryListReflection(UserList list) throws Exception {
+        return reflectionMapper.writeValueAsBytes(list.summaries);
+    }
+
+    @Benchmark
+    public byte[] serializeSummaryListBlackbird(UserList list) throws Exception {
+        return summaryListWriter.writeValueAsBytes(list.summaries);
+    }
+}
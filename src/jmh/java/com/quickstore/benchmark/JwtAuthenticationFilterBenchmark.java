@@ -0,0 +1,79 @@
+package com.quickstore.benchmark;
+
+import com.quickstore.dto.UserSnapshot;
+import com.quickstore.model.User;
+import com.quickstore.security.JwtAuthenticationFilter;
+import com.quickstore.security.JwtTokenProvider;
+import com.quickstore.security.TokenRevocationRegistry;
+import com.quickstore.security.VerifiedTokenCache;
+import com.quickstore.service.UserService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 完整的 JwtAuthenticationFilter 处理过程. UserService 为内存实现, 不包含数据库延迟.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenticationFilterBenchmark {
+
+    @Param({"true", "false"})
+    public boolean claimsOnly;
+
+    @Param({"true", "false"})
+    public boolean tokenCache;
+
+    private JwtAuthenticationFilter filter;
+    private String authorization;
+
+    @Setup
+    public void setup() {
+        JwtTokenProvider tokenProvider = new JwtTokenProvider(
+                "benchmark-secret-key-that-is-at-least-256-bits-long", 900000L, 604800000L,
+                new SimpleMeterRegistry());
+        // 过滤器只调用这两个查询
+        UserService userService = (UserService) Proxy.newProxyInstance(UserService.class.getClassLoader(),
+                new Class<?>[] {UserService.class}, (proxy, method, args) -> switch (method.getName()) {
+                    case "loadUserByUsername" -> new org.springframework.security.core.userdetails.User(
+                            (String) args[0], "{noop}password",
+                            Collections.singletonList(new SimpleGrantedAuthority("ROLE_ADMIN")));
+                    case "findSnapshotByUsername" -> new UserSnapshot(1L, (String) args[0], "admin");
+                    default -> throw new UnsupportedOperationException(method.getName());
+                });
+
+        filter = new JwtAuthenticationFilter(tokenProvider, userService,
+                new VerifiedTokenCache(tokenCache, 10000), new TokenRevocationRegistry(), claimsOnly, List.of(), new SimpleMeterRegistry());
+
+        User user = new User();
+        user.setId(1L);
+        user.setUsername("admin");
+        user.setRole("admin");
+        authorization = "Bearer " + tokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public Object doFilter() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/users");
+        request.addHeader("Authorization", authorization);
+        try {
+            filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+            return SecurityContextHolder.getContext().getAuthentication();
+        } finally {
+            SecurityContextHolder.clearContext();
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package com.quickstore.benchmark;
+
+import com.quickstore.model.User;
+import com.quickstore.security.JwtTokenProvider;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 对比旧的验证流程(每次重建密钥, validateToken + getUsernameFromToken 两次解析)
+ * 与启动时缓存密钥和解析器、单次解析的 parseToken.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtVerificationBenchmark {
+
+    private static final String SECRET = "benchmark-secret-key-that-is-at-least-256-bits-long";
+
+    private JwtTokenProvider tokenProvider;
+    private String token;
+
+    @Setup
+    public void setup() {
+        tokenProvider = new JwtTokenProvider(SECRET, 900000L, 604800000L, new SimpleMeterRegistry());
+
+        User user = new User();
+        user.setId(42L);
+        user.setUsername("scanner01");
+        user.setRole("warehouse");
+        token = tokenProvider.generateToken(user);
+    }
+
+    @Benchmark
+    public String legacyValidateThenParse() {
+        // 基线: 与改动前 JwtTokenProvider 的行为一致
+        Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token);
+        Claims claims = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+        return claims.getSubject();
+    }
+
+    @Benchmark
+    public String singleParse() {
+        return tokenProvider.parseToken(token).getSubject();
+    }
+}
@@ -0,0 +1,134 @@
+package com.quickstore.benchmark;
+
+import org.flywaydb.core.Flyway;
+import org.openjdk.jmh.annotations.*;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 用户搜索在大表上的延迟, 每次操作与 UserServiceImpl.searchUsers 相同: 一个事务内设置 plan_cache_mode
+ * 并执行 UserRepository.searchSummaries 生成的 SQL.
+ * 需要可连接的 PostgreSQL (BENCH_DB_URL / BENCH_DB_USERNAME / BENCH_DB_PASSWORD, 默认与 application.yml 相同),
+ * 在临时数据库中执行 Flyway 迁移并生成用户 (用户名形如 john.li4242), 结束后删除该数据库.
+ * 大部分行都包含的三元组 (例如所有用户名共同的前缀) 做中间匹配时会明显变慢.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UserSearchBenchmark {
+
+    private static final String BENCH_DATABASE = "quickstore_search_bench";
+    private static final String SEARCH_SQL = "select u1_0.id, u1_0.username, u1_0.full_name, u1_0.role, u1_0.created_at " +
+            "from users u1_0 where (lower(u1_0.username) like ? escape '\\' or lower(u1_0.full_name) like ? escape '\\') " +
+            "and (? is null or u1_0.role = ?) and u1_0.username > ? order by u1_0.username offset ? rows fetch first ? rows only";
+    private static final String CUSTOM_PLAN_SQL = "select set_config('plan_cache_mode', 'force_custom_plan', true)";
+    private static final int LIMIT = 20;
+
+    @Param({"100000"})
+    public int users;
+
+    // 用户名前缀 / 用户名中间片段 / 常见姓氏 (5% 的用户) / 无结果
+    @Param({"john.li42", "li4242", "chen", "zzq"})
+    public String query;
+
+    @Param({"prefix", "contains"})
+    public String match;
+
+    private String adminUrl;
+    private String username;
+    private String password;
+    private Connection connection;
+    private PreparedStatement customPlan;
+    private PreparedStatement statement;
+    private String pattern;
+
+    @Setup
+    public void setup() throws SQLException {
+        adminUrl = env("BENCH_DB_URL", "jdbc:postgresql://localhost:5432/quickstore_db");
+        username = env("BENCH_DB_USERNAME", "postgres");
+        password = env("BENCH_DB_PASSWORD", "colin1234");
+        String benchUrl = adminUrl.replaceFirst("/[^/?]+(\\?|$)", "/" + BENCH_DATABASE + "$1");
+
+        try (Connection admin = DriverManager.getConnection(adminUrl, username, password);
+             Statement st = admin.createStatement()) {
+            st.execute("DROP DATABASE IF EXISTS " + BENCH_DATABASE);
+            st.execute("CREATE DATABASE " + BENCH_DATABASE);
+        }
+        Flyway.configure().dataSource(benchUrl, username, password).load().migrate();
+
+        connection = DriverManager.getConnection(benchUrl, username, password);
+        try (Statement st = connection.createStatement()) {
+            st.execute("INSERT INTO users (username, password_hash, full_name, role, created_at, updated_at) " +
+                    "SELECT lower(given) || '.' || lower(surname) || i, 'x', given || ' ' || surname, " +
+                    "(ARRAY['admin','staff','warehouse'])[1 + i % 3], now(), now() FROM (" +
+                    "SELECT i, (ARRAY['Chen','Wang','Li','Zhang','Liu','Yang','Huang','Zhao','Wu','Zhou'," +
+                    "'Smith','Johnson','Brown','Taylor','Miller','Davis','Wilson','Moore','Clark','Lewis'])[1 + i % 20] AS surname, " +
+                    "(ARRAY['Wei','Fang','Min','Jing','Lei','Yan','Tao','Ming','Hui','Jun'," +
+                    "'James','Mary','John','Linda','David','Susan','Paul','Karen','Mark','Lisa'])[1 + (i / 20) % 20] AS given " +
+                    "FROM generate_series(1, " + users + ") AS i) AS names");
+            st.execute("VACUUM ANALYZE users");
+        }
+
+        String term = query.toLowerCase();
+        pattern = "prefix".equals(match) ? term + "%" : "%" + term + "%";
+        connection.setAutoCommit(false);
+        customPlan = connection.prepareStatement(CUSTOM_PLAN_SQL);
+        statement = connection.prepareStatement(SEARCH_SQL);
+    }
+
+    @TearDown
+    public void tearDown() throws SQLException {
+        customPlan.close();
+        statement.close();
+        connection.close();
+        try (Connection admin = DriverManager.getConnection(adminUrl, username, password);
+             Statement st = admin.createStatement()) {
+            st.execute("DROP DATABASE IF EXISTS " + BENCH_DATABASE);
+        }
+    }
+
+    @Benchmark
+    public int search() throws SQLException {
+        return execute(null);
+    }
+
+    @Benchmark
+    public int searchByRole() throws SQLException {
+        return execute("staff");
+    }
+
+    private int execute(String role) throws SQLException {
+        try (ResultSet rs = customPlan.executeQuery()) {
+            rs.next();
+        }
+        statement.setString(1, pattern);
+        statement.setString(2, pattern);
+        statement.setString(3, role);
+        statement.setString(4, role);
+        statement.setString(5, "");
+        statement.setInt(6, 0);
+        statement.setInt(7, LIMIT);
+        int rows = 0;
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                rows++;
+            }
+        }
+        connection.commit();
+        return rows;
+    }
+
+    private static String env(String name, String defaultValue) {
+        String value = System.getenv(name);
+        return value == null || value.isEmpty() ? defaultValue : value;
+    }
+}
@@ -0,0 +1,211 @@
+package com.quickstore.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.quickstore.QuickStoreApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import javax.sql.DataSource;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 端到端压测: 启动嵌入式 PostgreSQL 和 QuickStoreApplication, 生成用户后按固定到达率同时运行
+ * 登录、列表读取、搜索和管理员修改四个场景, 结果写入 loadtest.out 目录.
+ * 压测端与应用运行在同一个 JVM 中, 只适合在同一台机器上对比不同构建, 不代表生产环境的绝对容量.
+ *
+ *   mvn -Ploadtest compile exec:exec -Dloadtest.users=10000 -Dloadtest.read-rate=200
+ */
+public class LoadTest {
+
+    private static final String ADMIN_USERNAME = "loadtest-admin";
+    private static final String PASSWORD = "loadtest-password";
+    private static final int PAGE_SIZE = 50;
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+    private static final String[] SURNAMES = {"Chen", "Wang", "Li", "Zhang", "Liu", "Smith", "Brown", "Taylor"};
+    private static final String[] GIVEN_NAMES = {"Wei", "Fang", "Min", "Jing", "James", "Mary", "John", "Linda"};
+
+    public static void main(String[] args) throws Exception {
+        int users = Integer.getInteger("loadtest.users", 1000);
+        int durationSeconds = Integer.getInteger("loadtest.duration", 60);
+        int warmupSeconds = Integer.getInteger("loadtest.warmup", 10);
+        double loginRate = doubleProperty("loadtest.login-rate", 5);
+        double readRate = doubleProperty("loadtest.read-rate", 50);
+        double searchRate = doubleProperty("loadtest.search-rate", 20);
+        double writeRate = doubleProperty("loadtest.write-rate", 10);
+        int bcryptStrength = Integer.getInteger("loadtest.bcrypt-strength", 10);
+        Path outDir = Path.of(System.getProperty("loadtest.out", "target/loadtest"));
+        String baseline = System.getProperty("loadtest.baseline", "");
+
+        Map<String, Object> settings = new LinkedHashMap<>();
+        settings.put("users", users);
+        settings.put("durationSeconds", durationSeconds);
+        settings.put("warmupSeconds", warmupSeconds);
+        settings.put("bcryptStrength", bcryptStrength);
+        settings.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        settings.put("javaVersion", System.getProperty("java.version"));
+
+        try (EmbeddedPostgres postgres = EmbeddedPostgres.builder().start()) {
+            ConfigurableApplicationContext context = startApplication(
+                    postgres.getJdbcUrl("postgres", "postgres"), bcryptStrength);
+            try {
+                String baseUrl = "http://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/api";
+                List<Long> userIds = seedUsers(context, users);
+                System.out.printf("Seeded %d users, application at %s%n", users, baseUrl);
+
+                HttpClient client = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
+                String adminToken = login(client, baseUrl, ADMIN_USERNAME);
+
+                List<Scenario> scenarios = List.of(
+                        new Scenario("login", loginRate, i -> post(baseUrl + "/auth/login", null,
+                                loginBody(String.format("user%05d", 1 + pick("login", i, users))))),
+                        new Scenario("read", readRate, i -> get(baseUrl + "/users?limit=" + PAGE_SIZE + "&cursor="
+                                + cursor(userIds.get(pick("read", i, userIds.size()))), adminToken)),
+                        new Scenario("search", searchRate, i -> get(baseUrl + "/users/search?q="
+                                + String.format("%03d", pick("search", i, 1000)), adminToken)),
+                        new Scenario("write", writeRate, i -> put(baseUrl + "/users/" + userIds.get(pick("write", i, userIds.size())),
+                                adminToken, "{\"fullName\":\"Load Test " + i + "\",\"role\":\"staff\"}")));
+
+                run(client, scenarios, warmupSeconds, durationSeconds);
+
+                LoadTestReport report = new LoadTestReport();
+                report.write(outDir, settings, scenarios, durationSeconds);
+                System.out.printf("%nReport written to %s%n", outDir.toAbsolutePath());
+                if (!baseline.isEmpty()) {
+                    report.compare(Path.of(baseline), outDir.resolve("summary.json"));
+                }
+            } finally {
+                context.close();
+            }
+        }
+        System.exit(0);
+    }
+
+    private static ConfigurableApplicationContext startApplication(String jdbcUrl, int bcryptStrength) {
+        // 命令行参数优先级高于 application.yml
+        return new SpringApplicationBuilder(QuickStoreApplication.class).run(
+                "--spring.datasource.url=" + jdbcUrl,
+                "--spring.datasource.username=postgres",
+                "--spring.datasource.password=postgres",
+                "--spring.datasource.replica.enabled=false",
+                "--server.port=0",
+                "--spring.jpa.show-sql=false",
+                "--logging.level.root=WARN",
+                "--logging.level.com.quickstore=WARN",
+                // 管理员令牌在整个压测期间有效
+                "--spring.security.jwt.expiration=86400000",
+                // 固定强度, 避免不同机器校准出不同的 BCrypt 强度影响对比
+                "--spring.security.password-hashing.bcrypt-strength=" + bcryptStrength,
+                // 所有请求来自同一个地址, 关闭登录限流
+                "--spring.security.login-rate-limit.username.capacity=1000000000",
+                "--spring.security.login-rate-limit.username.refill-per-minute=1000000000",
+                "--spring.security.login-rate-limit.ip.capacity=1000000000",
+                "--spring.security.login-rate-limit.ip.refill-per-minute=1000000000");
+    }
+
+    // 所有用户使用同一个密码哈希, 只需要做一次 BCrypt
+    private static List<Long> seedUsers(ConfigurableApplicationContext context, int users) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(context.getBean(DataSource.class));
+        String hash = context.getBean(PasswordEncoder.class).encode(PASSWORD);
+        String sql = "INSERT INTO users (username, password_hash, full_name, role, created_at, updated_at) "
+                + "VALUES (?, ?, ?, ?, now(), now())";
+
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[] {ADMIN_USERNAME, hash, "Load Test Admin", "admin"});
+        for (int i = 1; i <= users; i++) {
+            String fullName = GIVEN_NAMES[i % GIVEN_NAMES.length] + " " + SURNAMES[(i / GIVEN_NAMES.length) % SURNAMES.length];
+            rows.add(new Object[] {String.format("user%05d", i), hash, fullName, "staff"});
+        }
+        jdbcTemplate.batchUpdate(sql, rows);
+        jdbcTemplate.execute("ANALYZE users");
+        return jdbcTemplate.queryForList("SELECT id FROM users WHERE role = 'staff' ORDER BY id", Long.class);
+    }
+
+    private static void run(HttpClient client, List<Scenario> scenarios, int warmupSeconds, int durationSeconds)
+            throws InterruptedException {
+        long start = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(100);
+        long measureStart = start + TimeUnit.SECONDS.toNanos(warmupSeconds);
+        long end = measureStart + TimeUnit.SECONDS.toNanos(durationSeconds);
+        System.out.printf("Running %ds warmup + %ds measurement%n", warmupSeconds, durationSeconds);
+
+        List<Thread> threads = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            Thread thread = new Thread(() -> scenario.run(client, start, measureStart, end), "loadtest-" + scenario.getName());
+            thread.start();
+            threads.add(thread);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (Scenario scenario : scenarios) {
+            if (!scenario.awaitCompletion(REQUEST_TIMEOUT.toSeconds(), TimeUnit.SECONDS)) {
+                System.out.printf("Scenario %s still has requests in flight%n", scenario.getName());
+            }
+        }
+    }
+
+    private static String login(HttpClient client, String baseUrl, String username) throws Exception {
+        HttpResponse<String> response = client.send(post(baseUrl + "/auth/login", null, loginBody(username)),
+                HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() != 200) {
+            throw new IllegalStateException("Login failed for " + username + ": " + response.statusCode());
+        }
+        return new ObjectMapper().readTree(response.body()).path("token").asText();
+    }
+
+    // 按场景和序号确定, 同样的参数每次运行发送相同的请求序列
+    private static int pick(String scenario, int index, int bound) {
+        return new SplittableRandom(scenario.hashCode() * 1_000_003L + index).nextInt(bound);
+    }
+
+    private static String loginBody(String username) {
+        return "{\"username\":\"" + username + "\",\"password\":\"" + PASSWORD + "\"}";
+    }
+
+    private static String cursor(long afterId) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(String.valueOf(afterId).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static HttpRequest get(String url, String token) {
+        return request(url, token).header("Accept-Encoding", "gzip").GET().build();
+    }
+
+    private static HttpRequest post(String url, String token, String body) {
+        return request(url, token).header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static HttpRequest put(String url, String token, String body) {
+        return request(url, token).header("Content-Type", "application/json")
+                .PUT(HttpRequest.BodyPublishers.ofString(body)).build();
+    }
+
+    private static HttpRequest.Builder request(String url, String token) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(url)).timeout(REQUEST_TIMEOUT);
+        if (token != null) {
+            builder.header("Authorization", "Bearer " + token);
+        }
+        return builder;
+    }
+
+    private static double doubleProperty(String name, double defaultValue) {
+        String value = System.getProperty(name);
+        return value == null || value.isEmpty() ? defaultValue : Double.parseDouble(value);
+    }
+}
@@ -0,0 +1,125 @@
+package com.quickstore.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.HdrHistogram.Histogram;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 每个场景写出一个 HdrHistogram 百分位分布文件 (<场景>.hgrm, 单位毫秒), 以及汇总所有场景的 summary.json.
+ * 两次构建的 summary.json 可以直接 diff, 也可以通过 loadtest.baseline 指定上一次的结果打印对比.
+ */
+class LoadTestReport {
+
+    private static final double MICROS_PER_MILLI = 1000.0;
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9};
+
+    private final ObjectMapper objectMapper = new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT);
+
+    void write(Path outDir, Map<String, Object> settings, List<Scenario> scenarios, long measuredSeconds)
+            throws IOException {
+        Files.createDirectories(outDir);
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (Scenario scenario : scenarios) {
+            if (scenario.getRatePerSecond() <= 0) {
+                continue;
+            }
+            Histogram histogram = scenario.getLatencyMicros();
+            try (PrintStream out = new PrintStream(Files.newOutputStream(outDir.resolve(scenario.getName() + ".hgrm")))) {
+                histogram.outputPercentileDistribution(out, MICROS_PER_MILLI);
+            }
+
+            Map<String, Object> latency = new LinkedHashMap<>();
+            latency.put("mean", round(histogram.getMean() / MICROS_PER_MILLI));
+            for (double percentile : PERCENTILES) {
+                latency.put(percentileKey(percentile),
+                        round(histogram.getValueAtPercentile(percentile) / MICROS_PER_MILLI));
+            }
+            latency.put("max", round(histogram.getMaxValue() / MICROS_PER_MILLI));
+
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("name", scenario.getName());
+            result.put("targetRate", scenario.getRatePerSecond());
+            result.put("throughput", round((double) histogram.getTotalCount() / measuredSeconds));
+            result.put("responses", histogram.getTotalCount());
+            result.put("errors", scenario.getErrors());
+            result.put("failures", scenario.getFailures());
+            result.put("dropped", scenario.getDropped());
+            result.put("statuses", scenario.getStatusCounts());
+            result.put("latencyMillis", latency);
+            results.add(result);
+        }
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("settings", settings);
+        summary.put("scenarios", results);
+        objectMapper.writeValue(outDir.resolve("summary.json").toFile(), summary);
+
+        printTable(results);
+    }
+
+    void compare(Path baselineFile, Path currentFile) throws IOException {
+        JsonNode baseline = objectMapper.readTree(baselineFile.toFile());
+        JsonNode current = objectMapper.readTree(currentFile.toFile());
+
+        System.out.printf("%nCompared with %s%n", baselineFile);
+        System.out.printf("%-10s %-12s %12s %12s %9s%n", "scenario", "metric", "baseline", "current", "change");
+        for (JsonNode scenario : current.path("scenarios")) {
+            String name = scenario.path("name").asText();
+            JsonNode before = null;
+            for (JsonNode candidate : baseline.path("scenarios")) {
+                if (name.equals(candidate.path("name").asText())) {
+                    before = candidate;
+                }
+            }
+            if (before == null) {
+                System.out.printf("%-10s (not in baseline)%n", name);
+                continue;
+            }
+            printChange(name, "throughput", before.path("throughput"), scenario.path("throughput"));
+            printChange(name, "errors", before.path("errors"), scenario.path("errors"));
+            for (String metric : new String[] {"p50", "p99", "p99.9", "max"}) {
+                printChange(name, metric + " ms", before.path("latencyMillis").path(metric),
+                        scenario.path("latencyMillis").path(metric));
+            }
+        }
+    }
+
+    private static void printChange(String scenario, String metric, JsonNode before, JsonNode after) {
+        double b = before.asDouble();
+        double a = after.asDouble();
+        String change = b == 0 ? "-" : String.format("%+.1f%%", (a - b) / b * 100);
+        System.out.printf("%-10s %-12s %12.3f %12.3f %9s%n", scenario, metric, b, a, change);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void printTable(List<Map<String, Object>> results) {
+        System.out.printf("%n%-10s %8s %10s %8s %9s %9s %9s %9s %9s%n",
+                "scenario", "rate", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map<String, Object> result : results) {
+            Map<String, Object> latency = (Map<String, Object>) result.get("latencyMillis");
+            System.out.printf("%-10s %8.1f %10.2f %8d %9.3f %9.3f %9.3f %9.3f %9.3f%n",
+                    result.get("name"), result.get("targetRate"), result.get("throughput"), result.get("errors"),
+                    latency.get("p50"), latency.get("p90"), latency.get("p99"), latency.get("p99.9"),
+                    latency.get("max"));
+        }
+    }
+
+    private static String percentileKey(double percentile) {
+        return percentile == Math.rint(percentile) ? "p" + (int) percentile : "p" + percentile;
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000) / 1000.0;
+    }
+}
@@ -0,0 +1,126 @@
+package com.quickstore.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.IntFunction;
+
+/**
+ * 固定到达率的场景: 按计划时间发送请求, 不等待上一个响应返回 (开放模型).
+ * 延迟从计划发送时间开始计算, 服务端变慢导致的排队也计入延迟, 避免协调遗漏.
+ */
+class Scenario {
+
+    // 超过该数量的未完成请求时放弃发送, 记为 dropped, 避免压测端自身耗尽内存
+    private static final int MAX_IN_FLIGHT = 1000;
+
+    private final String name;
+    private final double ratePerSecond;
+    private final IntFunction<HttpRequest> requestFactory;
+    private final Histogram latencyMicros = new ConcurrentHistogram(3);
+    private final Map<Integer, LongAdder> statusCounts = new ConcurrentHashMap<>();
+    private final LongAdder failures = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+    Scenario(String name, double ratePerSecond, IntFunction<HttpRequest> requestFactory) {
+        this.name = name;
+        this.ratePerSecond = ratePerSecond;
+        this.requestFactory = requestFactory;
+    }
+
+    /**
+     * 从 startNanos 开始发送到 endNanos 为止, 计划时间早于 measureStartNanos 的请求属于预热, 不计入结果.
+     */
+    void run(HttpClient client, long startNanos, long measureStartNanos, long endNanos) {
+        if (ratePerSecond <= 0) {
+            return;
+        }
+        double intervalNanos = TimeUnit.SECONDS.toNanos(1) / ratePerSecond;
+        for (int i = 0; ; i++) {
+            long intended = startNanos + (long) (i * intervalNanos);
+            if (intended >= endNanos) {
+                break;
+            }
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+
+            boolean measured = intended >= measureStartNanos;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    dropped.increment();
+                }
+                continue;
+            }
+            client.sendAsync(requestFactory.apply(i), HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                        inFlight.release();
+                        if (!measured) {
+                            return;
+                        }
+                        if (error != null) {
+                            failures.increment();
+                            return;
+                        }
+                        statusCounts.computeIfAbsent(response.statusCode(), k -> new LongAdder()).increment();
+                        latencyMicros.recordValue(micros);
+                    });
+        }
+    }
+
+    boolean awaitCompletion(long timeout, TimeUnit unit) throws InterruptedException {
+        if (!inFlight.tryAcquire(MAX_IN_FLIGHT, timeout, unit)) {
+            return false;
+        }
+        inFlight.release(MAX_IN_FLIGHT);
+        return true;
+    }
+
+    String getName() {
+        return name;
+    }
+
+    double getRatePerSecond() {
+        return ratePerSecond;
+    }
+
+    Histogram getLatencyMicros() {
+        return latencyMicros;
+    }
+
+    Map<Integer, Long> getStatusCounts() {
+        Map<Integer, Long> counts = new TreeMap<>();
+        statusCounts.forEach((status, count) -> counts.put(status, count.sum()));
+        return counts;
+    }
+
+    // 非 2xx 响应、连接错误/超时和被丢弃的请求
+    long getErrors() {
+        long non2xx = statusCounts.entrySet().stream()
+                .filter(e -> e.getKey() < 200 || e.getKey() >= 300)
+                .mapToLong(e -> e.getValue().sum())
+                .sum();
+        return non2xx + failures.sum() + dropped.sum();
+    }
+
+    long getFailures() {
+        return failures.sum();
+    }
+
+    long getDropped() {
+        return dropped.sum();
+    }
+}
@@ -0,0 +1,30 @@
+package com.quickstore.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 用户快照的进程内缓存, 由 Caffeine 提供 (容量和过期时间见 spring.cache.caffeine.spec).
+ * 缓存的写入和清除推迟到外层事务提交之后, 避免提交前清除的条目又被并发读取放回旧值.
+ * 多实例部署时各实例缓存独立, 其他实例上的修改最多在过期时间后可见, 因此缓存中只放角色等非凭据信息.
+ */
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String USERS_BY_USERNAME = "usersByUsername";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${spring.cache.caffeine.spec:}") String spec) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager(USERS_BY_USERNAME);
+        if (!spec.isEmpty()) {
+            cacheManager.setCacheSpecification(spec);
+        }
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+}
@@ -0,0 +1,26 @@
+package com.quickstore.config;
+
+import com.fasterxml.jackson.databind.Module;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.NativeDetector;
+
+/**
+ * Spring Boot 把容器中的 Jackson Module 注册到自动配置的 ObjectMapper 上,
+ * 消息转换器和注入 ObjectMapper 的服务共用这一个实例.
+ */
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Blackbird 在运行时为 getter 和构造器生成调用类, 代替反射. 原生镜像中无法定义新类, 退回普通反射
+     */
+    @Bean
+    @ConditionalOnProperty(name = "spring.jackson.blackbird.enabled", matchIfMissing = true)
+    public Module blackbirdModule() {
+        return NativeDetector.inNativeImage() ? new SimpleModule("blackbird-disabled") : new BlackbirdModule();
+    }
+}
@@ -1,7 +1,11 @@
 package com.quickstore.config;
 
+import com.quickstore.filter.ConcurrencyLimitFilter;
+import com.quickstore.security.CalibratedBCryptPasswordEncoder;
 import com.quickstore.security.JwtAuthenticationFilter;
-import com.quickstore.security.JwtTokenProvider;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.config.annotation.method.configuration.EnableMethodSecurity;
@@ -9,39 +13,66 @@ import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.config.http.SessionCreationPolicy;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.DelegatingPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
+import org.springframework.security.web.session.DisableEncodeUrlFilter;
 import org.springframework.web.cors.CorsConfiguration;
 import org.springframework.web.cors.CorsConfigurationSource;
 import org.springframework.web.cors.UrlBasedCorsConfigurationSource;
 
 import java.util.Arrays;
+import java.util.Map;
 
 @Configuration
 @EnableWebSecurity
 @EnableMethodSecurity
 public class SecurityConfig {
 
+    private static final String BCRYPT_ID = "bcrypt";
+
     @Bean
-    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtTokenProvider tokenProvider, UserDetailsService userDetailsService) throws Exception {
+    public SecurityFilterChain securityFilterChain(HttpSecurity http, JwtAuthenticationFilter jwtAuthenticationFilter,
+                                                   ConcurrencyLimitFilter concurrencyLimitFilter) throws Exception {
         http
             .cors().configurationSource(corsConfigurationSource())
             .and()
             .csrf(AbstractHttpConfigurer::disable)
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
+                // 异步接口的结果分派已在首次请求时完成鉴权; 错误分派 (/error) 放行,
+                // 否则 400/500 等错误响应对未登录的请求 (如 /auth/login) 都会变成 403
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
                 .requestMatchers("/auth/**").permitAll()
+                // 探针不带令牌; 指标会暴露连接池、延迟和限流等内部状态, 只允许管理员读取
+                .requestMatchers("/test/health", "/actuator/health/**").permitAll()
+                .requestMatchers("/actuator/**").hasRole("ADMIN")
                 .anyRequest().authenticated()
             )
-            .addFilterBefore(new JwtAuthenticationFilter(tokenProvider, userDetailsService), 
-                            UsernamePasswordAuthenticationFilter.class);
+            // 放在安全链的第一个位置, 超出并发上限的请求不再解析令牌
+            .addFilterBefore(concurrencyLimitFilter, DisableEncodeUrlFilter.class)
+            .addFilterBefore(jwtAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
         
         return http.build();
     }
 
+    // 过滤器只在安全链中执行, 避免被Servlet容器再注册一次导致每个请求认证两遍
+    @Bean
+    public FilterRegistrationBean<JwtAuthenticationFilter> jwtAuthenticationFilterRegistration(JwtAuthenticationFilter filter) {
+        FilterRegistrationBean<JwtAuthenticationFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilterRegistration(ConcurrencyLimitFilter filter) {
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setEnabled(false);
+        return registration;
+    }
+
     public CorsConfigurationSource corsConfigurationSource() {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(Arrays.asList(
@@ -51,6 +82,7 @@ public class SecurityConfig {
         ));
         configuration.setAllowedMethods(Arrays.asList("GET", "POST", "PUT", "DELETE", "OPTIONS"));
         configuration.setAllowedHeaders(Arrays.asList("*"));
+        configuration.setExposedHeaders(Arrays.asList("X-Next-Cursor", "X-Total-Count"));
         configuration.setAllowCredentials(true);
     
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
@@ -58,8 +90,24 @@ public class SecurityConfig {
         return source;
     }
 
+    /**
+     * 未配置 bcrypt-strength 时, 启动时选择单次哈希耗时最接近 target-millis 的强度.
+     * 新哈希带 {bcrypt} 前缀; 早期无前缀或强度较低的哈希仍按 BCrypt 校验, 登录成功后在后台按当前强度重新编码.
+     */
     @Bean
-    public PasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder(
+            @Value("${spring.security.password-hashing.bcrypt-strength:0}") int strength,
+            @Value("${spring.security.password-hashing.target-millis:"
+                    + CalibratedBCryptPasswordEncoder.DEFAULT_TARGET_MILLIS + "}") long targetMillis,
+            @Value("${spring.security.password-hashing.min-strength:"
+                    + CalibratedBCryptPasswordEncoder.DEFAULT_MIN_STRENGTH + "}") int minStrength,
+            @Value("${spring.security.password-hashing.max-strength:"
+                    + CalibratedBCryptPasswordEncoder.DEFAULT_MAX_STRENGTH + "}") int maxStrength) {
+        int cost = strength > 0 ? strength
+                : CalibratedBCryptPasswordEncoder.calibrate(targetMillis, minStrength, maxStrength);
+        DelegatingPasswordEncoder encoder = new DelegatingPasswordEncoder(BCRYPT_ID,
+                Map.of(BCRYPT_ID, new CalibratedBCryptPasswordEncoder(cost)));
+        encoder.setDefaultPasswordEncoderForMatches(new BCryptPasswordEncoder());
+        return encoder;
     }
 }
\ No newline at end of file
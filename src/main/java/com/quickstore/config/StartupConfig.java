@@ -0,0 +1,56 @@
+package com.quickstore.config;
+
+import com.quickstore.dto.LoginResponse;
+import com.quickstore.dto.UserImportResult;
+import com.quickstore.dto.UserSummary;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.aot.hint.MemberCategory;
+import org.springframework.aot.hint.RuntimeHints;
+import org.springframework.aot.hint.RuntimeHintsRegistrar;
+import org.springframework.aot.hint.annotation.RegisterReflectionForBinding;
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.ImportRuntimeHints;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.SecurityFilterChain;
+
+import javax.sql.DataSource;
+
+/**
+ * 启动优化. spring.main.lazy-initialization 开启后大部分 bean 在第一次使用时才创建,
+ * 但连接池、JPA、安全过滤链和密码编码器仍在启动时初始化, 避免第一个请求承担 Hibernate 启动
+ * 和 BCrypt 强度校准的开销.
+ * 另外注册原生镜像 (mvn -Pnative native:compile) 需要的反射提示.
+ */
+@Configuration
+@ImportRuntimeHints(StartupConfig.JjwtRuntimeHints.class)
+// 控制器返回 ResponseEntity<?>, AOT 无法从方法签名推断出需要序列化的类型
+@RegisterReflectionForBinding({LoginResponse.class, UserSummary.class, UserImportResult.class})
+public class StartupConfig {
+
+    @Bean
+    static LazyInitializationExcludeFilter eagerInfrastructureBeans() {
+        return LazyInitializationExcludeFilter.forBeanTypes(
+                DataSource.class, EntityManagerFactory.class, SecurityFilterChain.class, PasswordEncoder.class);
+    }
+
+    /**
+     * jjwt 0.11 通过类名反射创建实现类, 通过 ServiceLoader 加载 JSON 序列化器
+     */
+    static class JjwtRuntimeHints implements RuntimeHintsRegistrar {
+
+        @Override
+        public void registerHints(RuntimeHints hints, ClassLoader classLoader) {
+            for (String type : new String[] {
+                    "io.jsonwebtoken.impl.DefaultJwtBuilder",
+                    "io.jsonwebtoken.impl.DefaultJwtParserBuilder",
+                    "io.jsonwebtoken.impl.DefaultJwtParser",
+                    "io.jsonwebtoken.jackson.io.JacksonSerializer",
+                    "io.jsonwebtoken.jackson.io.JacksonDeserializer"}) {
+                hints.reflection().registerTypeIfPresent(classLoader, type, MemberCategory.INVOKE_PUBLIC_CONSTRUCTORS);
+            }
+            hints.resources().registerPattern("META-INF/services/io.jsonwebtoken.io.*");
+        }
+    }
+}
@@ -2,19 +2,26 @@ package com.quickstore.controller;
 
 import com.quickstore.dto.LoginRequest;
 import com.quickstore.dto.LoginResponse;
+import com.quickstore.dto.RefreshTokenRequest;
 import com.quickstore.dto.RegisterRequest;
 import com.quickstore.model.User;
 import com.quickstore.security.JwtTokenProvider;
+import com.quickstore.security.LoginRateLimiter;
+import com.quickstore.security.PasswordHashingService;
+import com.quickstore.security.TokenRevocationRegistry;
 import com.quickstore.service.UserService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/auth")
@@ -22,59 +29,130 @@ public class AuthController {
     private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
 
     private final UserService userService;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
     private final JwtTokenProvider tokenProvider;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final LoginRateLimiter loginRateLimiter;
 
-    public AuthController(UserService userService, PasswordEncoder passwordEncoder, JwtTokenProvider tokenProvider) {
+    public AuthController(UserService userService, PasswordHashingService passwordHashingService,
+                          JwtTokenProvider tokenProvider, TokenRevocationRegistry revocationRegistry,
+                          LoginRateLimiter loginRateLimiter) {
         this.userService = userService;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
         this.tokenProvider = tokenProvider;
+        this.revocationRegistry = revocationRegistry;
+        this.loginRateLimiter = loginRateLimiter;
     }
 
     @PostMapping("/register")
-    public ResponseEntity<?> register(@Valid @RequestBody RegisterRequest registerRequest) {
-        logger.info("Attempting to register new user: {}", registerRequest.getUsername());
+    public CompletableFuture<ResponseEntity<?>> register(@Valid @RequestBody RegisterRequest registerRequest) {
+        logger.debug("Attempting to register new user: {}", registerRequest.getUsername());
 
-        // 检查用户名是否已存在
-        if (userService.findByUsername(registerRequest.getUsername()) != null) {
+        // 在 BCrypt 之前拒绝已存在的用户名; 大部分新用户名由布隆过滤器判断, 不需要查询
+        if (userService.isUsernameTaken(registerRequest.getUsername())) {
             logger.warn("Registration failed: Username {} already exists", registerRequest.getUsername());
-            return ResponseEntity.badRequest().body("Username already exists");
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Username already exists"));
         }
 
-        // 创建新用户
-        User user = new User();
-        user.setUsername(registerRequest.getUsername());
-        user.setPasswordHash(passwordEncoder.encode(registerRequest.getPassword()));
-        user.setFullName(registerRequest.getFullName());
-        user.setRole(registerRequest.getRole().toLowerCase()); // 确保角色是小写的
+        return passwordHashingService.encode(registerRequest.getPassword())
+                .thenApply(hash -> {
+                    // 单条 INSERT ... ON CONFLICT, 并发注册同一用户名时只有一个成功
+                    if (!userService.register(registerRequest.getUsername(), hash,
+                            registerRequest.getFullName(), registerRequest.getRole())) {
+                        logger.warn("Registration failed: Username {} already exists", registerRequest.getUsername());
+                        return ResponseEntity.badRequest().body("Username already exists");
+                    }
+                    logger.info("User registered successfully: {}", registerRequest.getUsername());
 
-        // 保存用户
-        userService.save(user);
-        logger.info("User registered successfully: {}", user.getUsername());
-
-        return ResponseEntity.ok("User registered successfully");
+                    return ResponseEntity.ok("User registered successfully");
+                });
     }
 
     @PostMapping("/login")
-    public ResponseEntity<LoginResponse> login(@Valid @RequestBody LoginRequest loginRequest) {
-        logger.info("Attempting login for user: {}", loginRequest.getUsername());
-        
+    public CompletableFuture<ResponseEntity<LoginResponse>> login(@Valid @RequestBody LoginRequest loginRequest,
+                                                                 HttpServletRequest request) {
+        logger.debug("Attempting login for user: {}", loginRequest.getUsername());
+
+        // 限流检查在查询数据库和校验密码之前
+        long retryAfterSeconds = loginRateLimiter.tryAcquire(loginRequest.getUsername(), request.getRemoteAddr());
+        if (retryAfterSeconds > 0) {
+            logger.debug("Login throttled for user: {}", loginRequest.getUsername());
+            return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds))
+                    .build());
+        }
+
         User user = userService.findByUsername(loginRequest.getUsername());
-        
-        if (user != null && passwordEncoder.matches(loginRequest.getPassword(), user.getPasswordHash())) {
-            logger.info("Login successful for user: {}", user.getUsername());
-            
-            UserDetails userDetails = new org.springframework.security.core.userdetails.User(
-                    user.getUsername(),
-                    user.getPasswordHash(),
-                    Collections.singletonList(new org.springframework.security.core.authority.SimpleGrantedAuthority("ROLE_" + user.getRole().toUpperCase()))
-            );
-            
-            String token = tokenProvider.generateToken(userDetails);
-            return ResponseEntity.ok(new LoginResponse(token, user.getUsername(), user.getRole()));
+
+        if (user == null) {
+            logger.warn("Login failed for user: {}", loginRequest.getUsername());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(null));
+        }
+
+        return passwordHashingService.matches(loginRequest.getPassword(), user.getPasswordHash())
+                .thenApply(matches -> {
+                    if (!matches) {
+                        logger.warn("Login failed for user: {}", loginRequest.getUsername());
+                        return ResponseEntity.badRequest().body(null);
+                    }
+
+                    logger.debug("Login successful for user: {}", user.getUsername());
+                    // 哈希强度与当前配置不同时在后台重新编码, 不影响本次响应
+                    userService.upgradePasswordHashIfNeeded(user.getId(), user.getPasswordHash(),
+                            loginRequest.getPassword());
+
+                    String token = tokenProvider.generateToken(user);
+                    String refreshToken = tokenProvider.generateRefreshToken(user);
+                    return ResponseEntity.ok(new LoginResponse(token, user.getUsername(), user.getRole(), refreshToken));
+                });
+    }
+
+    @PostMapping("/refresh")
+    public ResponseEntity<LoginResponse> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+        Claims claims = tokenProvider.parseToken(request.getRefreshToken());
+        if (claims == null || !tokenProvider.isRefreshToken(claims)) {
+            logger.warn("Token refresh failed: invalid refresh token");
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        Long userId = tokenProvider.getUserId(claims);
+        int tokenVersion = tokenProvider.getTokenVersion(claims);
+        if (revocationRegistry.isRevoked(userId, tokenVersion)) {
+            logger.warn("Token refresh failed: refresh token revoked for user id: {}", userId);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        // 重新加载用户 (不经过缓存), 新的访问令牌使用当前的角色
+        User user = userService.findById(userId);
+        if (user == null) {
+            logger.warn("Token refresh failed: user not found with id: {}", userId);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        // 内存吊销表最多落后一个同步周期, 以数据库中的令牌版本号为准
+        if (user.getTokenVersion() != tokenVersion) {
+            revocationRegistry.update(userId, user.getTokenVersion());
+            logger.warn("Token refresh failed: refresh token version is stale for user id: {}", userId);
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        // 每次刷新同时签发新的刷新令牌, 客户端应替换保存的旧令牌
+        String token = tokenProvider.generateToken(user);
+        String refreshToken = tokenProvider.generateRefreshToken(user);
+        return ResponseEntity.ok(new LoginResponse(token, user.getUsername(), user.getRole(), refreshToken));
+    }
+
+    @PostMapping("/logout")
+    public ResponseEntity<?> logout(Authentication authentication) {
+        if (authentication == null) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+
+        User user = userService.findByUsername(authentication.getName());
+        if (user != null) {
+            // 吊销该用户所有已签发的访问令牌和刷新令牌
+            userService.revokeTokens(user.getId());
+            logger.info("User logged out, tokens revoked: {}", user.getUsername());
         }
-        
-        logger.warn("Login failed for user: {}", loginRequest.getUsername());
-        return ResponseEntity.badRequest().body(null);
+        return ResponseEntity.ok().build();
     }
-} 
\ No newline at end of file
+}
@@ -1,23 +1,77 @@
 package com.quickstore.controller;
 
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.quickstore.security.VerifiedTokenCache;
+import org.springframework.boot.actuate.health.HealthComponent;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
 @RequestMapping("/test")
 public class TestController {
 
+    private final VerifiedTokenCache tokenCache;
+    private final CacheManager cacheManager;
+    private final HealthEndpoint healthEndpoint;
+
+    public TestController(VerifiedTokenCache tokenCache, CacheManager cacheManager, HealthEndpoint healthEndpoint) {
+        this.tokenCache = tokenCache;
+        this.cacheManager = cacheManager;
+        this.healthEndpoint = healthEndpoint;
+    }
+
+    /**
+     * 就绪探针: 使用 Actuator 的 readiness 健康组 (包含数据库检查), 未就绪时返回 503
+     */
     @GetMapping("/health")
     public ResponseEntity<Map<String, Object>> healthCheck() {
+        HealthComponent readiness = healthEndpoint.healthForPath("readiness");
+        Status status = readiness != null ? readiness.getStatus() : Status.UNKNOWN;
+
         Map<String, Object> response = new HashMap<>();
-        response.put("status", "UP");
-        response.put("message", "QuickStore Backend is running!");
+        response.put("status", status.getCode());
+        response.put("message", Status.UP.equals(status)
+                ? "QuickStore Backend is running!"
+                : "QuickStore Backend is not ready");
         response.put("timestamp", System.currentTimeMillis());
+        return ResponseEntity.status(Status.UP.equals(status) ? HttpStatus.OK : HttpStatus.SERVICE_UNAVAILABLE)
+                .body(response);
+    }
+
+    @GetMapping("/token-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> tokenCacheStats() {
+        return ResponseEntity.ok(tokenCache.getStats());
+    }
+
+    @GetMapping("/user-cache")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> userCacheStats() {
+        Map<String, Object> response = new LinkedHashMap<>();
+        for (String name : cacheManager.getCacheNames()) {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                CacheStats stats = cache.getNativeCache().stats();
+                Map<String, Object> cacheStats = new LinkedHashMap<>();
+                cacheStats.put("size", cache.getNativeCache().estimatedSize());
+                cacheStats.put("hits", stats.hitCount());
+                cacheStats.put("misses", stats.missCount());
+                cacheStats.put("evictions", stats.evictionCount());
+                cacheStats.put("hitRate", stats.hitRate());
+                response.put(name, cacheStats);
+            }
+        }
         return ResponseEntity.ok(response);
     }
-} 
\ No newline at end of file
+}
@@ -1,57 +1,213 @@
 package com.quickstore.controller;
 
 import com.quickstore.dto.ChangePasswordRequest;
+import com.quickstore.dto.RegisterRequest;
 import com.quickstore.dto.ResetPasswordRequest;
+import com.quickstore.dto.UserImportResult;
+import com.quickstore.dto.UserSummary;
 import com.quickstore.dto.UserUpdateRequest;
-import com.quickstore.model.User;
 import com.quickstore.service.UserService;
+import com.quickstore.util.CsvUtils;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/users")
 public class UserController {
 
     private static final Logger logger = LoggerFactory.getLogger(UserController.class);
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int MAX_IMPORT_SIZE = 1000;
+    private static final int DEFAULT_SEARCH_LIMIT = 20;
+    private static final int MAX_SEARCH_LIMIT = 100;
+    // 少于 3 个字符时无法使用三元组索引, 会退化为全表扫描
+    private static final int MIN_SEARCH_LENGTH = 3;
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+    // 允许浏览器缓存, 但每次都要用 If-None-Match 重新验证
+    private static final CacheControl LIST_CACHE_CONTROL = CacheControl.noCache().cachePrivate();
+
     private final UserService userService;
+    private final long exportTimeout;
 
-    public UserController(UserService userService) {
+    public UserController(UserService userService,
+                          @Value("${spring.mvc.async.export-timeout:600000}") long exportTimeout) {
         this.userService = userService;
+        this.exportTimeout = exportTimeout;
     }
 
     @GetMapping
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<List<User>> getAllUsers() {
-        logger.info("Attempting to get all users");
-        List<User> users = userService.findAllUsers();
-        logger.info("Found {} users", users.size());
-        return ResponseEntity.ok(users);
+    public ResponseEntity<?> getAllUsers(@RequestParam(defaultValue = UserService.SORT_BY_ID) String sort,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "" + DEFAULT_PAGE_SIZE) int limit,
+                                         @RequestParam(defaultValue = "false") boolean includeTotal,
+                                         WebRequest webRequest) {
+        logger.debug("Attempting to get users page, sort: {}, limit: {}", sort, limit);
+
+        if (!UserService.SORT_BY_ID.equals(sort) && !UserService.SORT_BY_USERNAME.equals(sort)) {
+            return ResponseEntity.badRequest().body("Unsupported sort key: " + sort);
+        }
+        if (limit < 1 || limit > MAX_PAGE_SIZE) {
+            return ResponseEntity.badRequest().body("Limit must be between 1 and " + MAX_PAGE_SIZE);
+        }
+
+        // 先读取表版本号再读取数据, 期间的并发修改最多导致客户端多请求一次
+        String etag = listETag(userService.getTableVersion(), sort, cursor, limit, includeTotal);
+        if (webRequest.checkNotModified(etag)) {
+            // checkNotModified 已写入 304 状态和 ETag 头
+            logger.debug("Users page not modified, etag: {}", etag);
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(LIST_CACHE_CONTROL).build();
+        }
+
+        List<UserSummary> users;
+        try {
+            users = userService.findUserSummaries(sort, decodeCursor(cursor), limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+        logger.debug("Found {} users", users.size());
+
+        // 游标和总数通过响应头返回, 响应体仍然是用户数组
+        HttpHeaders headers = new HttpHeaders();
+        if (users.size() == limit) {
+            UserSummary last = users.get(users.size() - 1);
+            String lastKey = UserService.SORT_BY_ID.equals(sort) ? String.valueOf(last.id()) : last.username();
+            headers.add(NEXT_CURSOR_HEADER, encodeCursor(lastKey));
+        }
+        if (includeTotal) {
+            headers.add(TOTAL_COUNT_HEADER, String.valueOf(userService.countUsers()));
+        }
+        return ResponseEntity.ok().headers(headers).eTag(etag).cacheControl(LIST_CACHE_CONTROL).body(users);
+    }
+
+    @GetMapping("/search")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> searchUsers(@RequestParam String q,
+                                         @RequestParam(defaultValue = UserService.MATCH_CONTAINS) String match,
+                                         @RequestParam(required = false) String role,
+                                         @RequestParam(required = false) String cursor,
+                                         @RequestParam(defaultValue = "" + DEFAULT_SEARCH_LIMIT) int limit) {
+        logger.debug("Attempting to search users, match: {}, role: {}, limit: {}", match, role, limit);
+
+        String query = q.trim();
+        if (query.length() < MIN_SEARCH_LENGTH) {
+            return ResponseEntity.badRequest().body("Query must be at least " + MIN_SEARCH_LENGTH + " characters");
+        }
+        if (!UserService.MATCH_PREFIX.equals(match) && !UserService.MATCH_CONTAINS.equals(match)) {
+            return ResponseEntity.badRequest().body("Unsupported match mode: " + match);
+        }
+        if (limit < 1 || limit > MAX_SEARCH_LIMIT) {
+            return ResponseEntity.badRequest().body("Limit must be between 1 and " + MAX_SEARCH_LIMIT);
+        }
+
+        List<UserSummary> users;
+        try {
+            users = userService.searchUsers(query, match, role == null || role.isBlank() ? null : role.toLowerCase(),
+                    decodeCursor(cursor), limit);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body("Invalid cursor");
+        }
+        logger.debug("Found {} users matching search", users.size());
+
+        // 按用户名做键集分页, 游标格式与 sort=username 的列表一致
+        HttpHeaders headers = new HttpHeaders();
+        if (users.size() == limit) {
+            headers.add(NEXT_CURSOR_HEADER, encodeCursor(users.get(users.size() - 1).username()));
+        }
+        return ResponseEntity.ok().headers(headers).body(users);
+    }
+
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportUsers(@RequestParam(defaultValue = UserService.EXPORT_FORMAT_NDJSON) String format,
+                                         HttpServletRequest request) {
+        logger.debug("Attempting to export users as {}", format);
+
+        MediaType contentType;
+        if (UserService.EXPORT_FORMAT_NDJSON.equals(format)) {
+            contentType = MediaType.APPLICATION_NDJSON;
+        } else if (UserService.EXPORT_FORMAT_CSV.equals(format)) {
+            contentType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else {
+            logger.warn("Unsupported export format: {}", format);
+            return ResponseEntity.badRequest().build();
+        }
+
+        // 导出可能远超普通异步请求的超时时间
+        WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest().setTimeout(exportTimeout);
+
+        StreamingResponseBody body = out -> userService.exportUsers(format, out);
+        return ResponseEntity.ok()
+                .contentType(contentType)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"users." + format + "\"")
+                .body(body);
+    }
+
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importUsers(@RequestBody List<RegisterRequest> requests) {
+        logger.debug("Attempting to import {} users", requests.size());
+
+        if (requests.size() > MAX_IMPORT_SIZE) {
+            return ResponseEntity.badRequest().body("At most " + MAX_IMPORT_SIZE + " users can be imported at once");
+        }
+
+        List<UserImportResult> results = userService.importUsers(requests);
+        logger.info("Imported {} of {} users", results.stream()
+                .filter(r -> UserImportResult.STATUS_CREATED.equals(r.status())).count(), requests.size());
+        return ResponseEntity.ok(results);
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<?> importUsersCsv(@RequestBody String body) {
+        List<RegisterRequest> requests;
+        try {
+            requests = parseImportCsv(body);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return importUsers(requests);
     }
 
     @PutMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> updateUser(@PathVariable Long id, @RequestBody UserUpdateRequest request) {
-        logger.info("Attempting to update user with id: {}", id);
-        
-        User user = userService.findById(id);
+    public ResponseEntity<?> updateUser(@PathVariable Long id, @Valid @RequestBody UserUpdateRequest request) {
+        logger.debug("Attempting to update user with id: {}", id);
+
+        // 单条 UPDATE 语句, 角色变化时同时吊销旧令牌; 返回更新后的用户 (不含密码哈希)
+        UserSummary user = userService.updateUser(id, request.getFullName(), request.getRole());
         if (user == null) {
             logger.warn("User not found with id: {}", id);
             return ResponseEntity.notFound().build();
         }
-
-        // 更新用户信息
-        user.setFullName(request.getFullName());
-        user.setRole(request.getRole().toLowerCase());
-
-        // 保存更新
-        userService.save(user);
-        logger.info("User updated successfully: {}", user.getUsername());
+        logger.info("User updated successfully: {}", id);
 
         return ResponseEntity.ok(user);
     }
@@ -59,47 +215,131 @@ public class UserController {
     @DeleteMapping("/{id}")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<?> deleteUser(@PathVariable Long id) {
-        logger.info("Attempting to delete user with id: {}", id);
-        
-        User user = userService.findById(id);
-        if (user == null) {
+        logger.debug("Attempting to delete user with id: {}", id);
+
+        if (!userService.deleteUser(id)) {
             logger.warn("User not found with id: {}", id);
             return ResponseEntity.notFound().build();
         }
+        logger.info("User deleted successfully: {}", id);
 
-        userService.deleteUser(id);
-        logger.info("User deleted successfully: {}", user.getUsername());
-        
         return ResponseEntity.ok().build();
     }
 
     @PostMapping("/change-password")
-    public ResponseEntity<?> changePassword(Authentication authentication, @RequestBody ChangePasswordRequest request) {
+    public CompletableFuture<ResponseEntity<?>> changePassword(Authentication authentication, @RequestBody ChangePasswordRequest request) {
         String username = authentication.getName();
-        logger.info("Attempting to change password for user: {}", username);
-        
+        logger.debug("Attempting to change password for user: {}", username);
+
         try {
-            userService.changePassword(username, request.getOldPassword(), request.getNewPassword());
-            logger.info("Password changed successfully for user: {}", username);
-            return ResponseEntity.ok().build();
+            return userService.changePassword(username, request.getOldPassword(), request.getNewPassword())
+                    .<ResponseEntity<?>>thenApply(v -> {
+                        logger.info("Password changed successfully for user: {}", username);
+                        return ResponseEntity.ok().build();
+                    })
+                    .exceptionally(ex -> {
+                        Throwable cause = unwrap(ex);
+                        logger.error("Failed to change password for user: {}", username, cause);
+                        return ResponseEntity.badRequest().body(cause.getMessage());
+                    });
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to change password for user: {}", username, e);
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
         }
     }
 
     @PostMapping("/{id}/reset-password")
     @PreAuthorize("hasRole('ADMIN')")
-    public ResponseEntity<?> resetPassword(@PathVariable Long id, @RequestBody ResetPasswordRequest request) {
-        logger.info("Attempting to reset password for user id: {}", id);
-        
+    public CompletableFuture<ResponseEntity<?>> resetPassword(@PathVariable Long id, @RequestBody ResetPasswordRequest request) {
+        logger.debug("Attempting to reset password for user id: {}", id);
+
         try {
-            userService.resetPassword(id, request.getNewPassword());
-            logger.info("Password reset successfully for user id: {}", id);
-            return ResponseEntity.ok().build();
+            return userService.resetPassword(id, request.getNewPassword())
+                    .<ResponseEntity<?>>thenApply(v -> {
+                        logger.info("Password reset successfully for user id: {}", id);
+                        return ResponseEntity.ok().build();
+                    })
+                    .exceptionally(ex -> {
+                        Throwable cause = unwrap(ex);
+                        logger.error("Failed to reset password for user id: {}", id, cause);
+                        return ResponseEntity.badRequest().body(cause.getMessage());
+                    });
+        } catch (RejectedExecutionException e) {
+            throw e;
         } catch (Exception e) {
             logger.error("Failed to reset password for user id: {}", id, e);
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body(e.getMessage()));
+        }
+    }
+
+    // 第一行为表头, 需包含 username,password,fullName 列, role 列可选
+    private static List<RegisterRequest> parseImportCsv(String body) {
+        String[] lines = body.split("\\r?\\n");
+        if (lines.length == 0 || lines[0].isBlank()) {
+            throw new IllegalArgumentException("CSV header is required");
+        }
+
+        List<String> header = CsvUtils.parseLine(lines[0].trim());
+        int usernameIndex = header.indexOf("username");
+        int passwordIndex = header.indexOf("password");
+        int fullNameIndex = header.indexOf("fullName");
+        int roleIndex = header.indexOf("role");
+        if (usernameIndex < 0 || passwordIndex < 0 || fullNameIndex < 0) {
+            throw new IllegalArgumentException("CSV header must contain username, password and fullName");
+        }
+
+        List<RegisterRequest> requests = new ArrayList<>();
+        for (int i = 1; i < lines.length; i++) {
+            if (lines[i].isBlank()) {
+                continue;
+            }
+            List<String> fields = CsvUtils.parseLine(lines[i]);
+            RegisterRequest request = new RegisterRequest();
+            request.setUsername(field(fields, usernameIndex));
+            request.setPassword(field(fields, passwordIndex));
+            request.setFullName(field(fields, fullNameIndex));
+            String role = field(fields, roleIndex);
+            if (role != null && !role.isEmpty()) {
+                request.setRole(role);
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index >= 0 && index < fields.size() ? fields.get(index).trim() : null;
+    }
+
+    private static String encodeCursor(String key) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(key.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ETag 只取决于表版本号和请求参数, 不需要加载或序列化任何用户.
+    // 使用弱 ETag: Tomcat 不会压缩带强 ETag 的响应, 而 If-None-Match 本来就按弱比较
+    private static String listETag(long tableVersion, String sort, String cursor, int limit, boolean includeTotal) {
+        String key = tableVersion + ":" + sort + ":" + cursor + ":" + limit + ":" + includeTotal;
+        return "W/\"" + DigestUtils.md5DigestAsHex(key.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+
+    private static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isEmpty()) {
+            return null;
+        }
+        return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    }
+
+    // 线程池饱和和并发修改继续向上抛出, 由 GlobalExceptionHandler 返回 503/409
+    private static Throwable unwrap(Throwable ex) {
+        Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+        if (cause instanceof RejectedExecutionException rejected) {
+            throw rejected;
+        }
+        if (cause instanceof OptimisticLockingFailureException conflict) {
+            throw conflict;
         }
+        return cause;
     }
-} 
\ No newline at end of file
+}
@@ -1,12 +1,4 @@
 package com.quickstore.dto;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
-
-@Data
-@AllArgsConstructor
-public class LoginResponse {
-    private String token;
-    private String username;
-    private String role;
-} 
\ No newline at end of file
+public record LoginResponse(String token, String username, String role, String refreshToken) {
+}
@@ -0,0 +1,8 @@
+package com.quickstore.dto;
+
+public record UserImportResult(int row, String username, String status, String message) {
+    public static final String STATUS_CREATED = "created";
+    public static final String STATUS_DUPLICATE = "duplicate";
+    public static final String STATUS_INVALID = "invalid";
+    public static final String STATUS_FAILED = "failed";
+}
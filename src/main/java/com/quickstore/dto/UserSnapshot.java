@@ -0,0 +1,8 @@
+package com.quickstore.dto;
+
+/**
+ * 用户名缓存中保存的不可变快照, 只包含构建认证信息需要的列.
+ * 不含密码哈希和版本号: 登录、修改密码和令牌版本检查都直接查询数据库
+ */
+public record UserSnapshot(Long id, String username, String role) {
+}
@@ -0,0 +1,9 @@
+package com.quickstore.dto;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户列表投影, 只包含列表页显示的列 (不含密码哈希)
+ */
+public record UserSummary(Long id, String username, String fullName, String role, LocalDateTime createdAt) {
+}
@@ -0,0 +1,197 @@
+package com.quickstore.filter;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.OrRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.IntFunction;
+
+/**
+ * 安全过滤链最前面的自适应并发限制. 请求按路径分为 auth、users、health 和 default 四组, 每组有独立的
+ * {@link GradientLimiter}, 一组请求激增或变慢不会占满其他组的名额. 超过上限的请求在做任何认证或数据库访问之前
+ * 直接返回 503. 使用平台线程时各组 max-limit 之和应小于 Tomcat 的工作线程数, 否则某一组仍可能先耗尽线程;
+ * virtual-threads 模式没有工作线程上限, 这些上限约束的是同时等待数据库连接池和 BCrypt 线程池的请求数.
+ */
+@Component
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimitFilter.class);
+    private static final long REJECTION_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final byte[] REJECTION_BODY = "Server is busy, please retry later".getBytes(StandardCharsets.UTF_8);
+
+    private final boolean enabled;
+    private final List<RequestMatcher> excludedMatchers;
+    private final List<Partition> partitions;
+    private final Partition defaultPartition;
+    private final AtomicLong nextRejectionLogAt = new AtomicLong(System.nanoTime());
+    private final AtomicLong suppressedRejections = new AtomicLong();
+
+    public ConcurrencyLimitFilter(@Value("${spring.security.concurrency-limit.enabled:true}") boolean enabled,
+                                  @Value("${spring.security.concurrency-limit.initial-limit:20}") int initialLimit,
+                                  @Value("${spring.security.concurrency-limit.min-limit:4}") int minLimit,
+                                  @Value("${spring.security.concurrency-limit.auth.max-limit:60}") int authMaxLimit,
+                                  @Value("${spring.security.concurrency-limit.users.max-limit:80}") int usersMaxLimit,
+                                  @Value("${spring.security.concurrency-limit.health.max-limit:10}") int healthMaxLimit,
+                                  @Value("${spring.security.concurrency-limit.default.max-limit:40}") int defaultMaxLimit,
+                                  @Value("${spring.security.concurrency-limit.window:1s}") Duration window,
+                                  @Value("${spring.security.concurrency-limit.min-window-samples:10}") int minWindowSamples,
+                                  @Value("${spring.security.concurrency-limit.rtt-tolerance:1.5}") double rttTolerance,
+                                  @Value("${spring.security.concurrency-limit.excluded-paths:}") List<String> excludedPaths,
+                                  MeterRegistry meterRegistry) {
+        this.enabled = enabled;
+        this.excludedMatchers = excludedPaths.stream()
+                .filter(StringUtils::hasText)
+                .map(path -> (RequestMatcher) new AntPathRequestMatcher(path.trim()))
+                .toList();
+        IntFunction<GradientLimiter> limiter = maxLimit -> new GradientLimiter(initialLimit, minLimit, maxLimit,
+                window.toNanos(), minWindowSamples, rttTolerance);
+        this.partitions = List.of(
+                new Partition("health", matcher("/test/health", "/actuator/health/**", "/actuator/prometheus"),
+                        limiter.apply(healthMaxLimit), meterRegistry),
+                new Partition("auth", matcher("/auth/**"), limiter.apply(authMaxLimit), meterRegistry),
+                new Partition("users", matcher("/users/**"), limiter.apply(usersMaxLimit), meterRegistry));
+        this.defaultPartition = new Partition("default", null, limiter.apply(defaultMaxLimit), meterRegistry);
+    }
+
+    private static RequestMatcher matcher(String... paths) {
+        return new OrRequestMatcher(Arrays.stream(paths)
+                .map(path -> (RequestMatcher) new AntPathRequestMatcher(path))
+                .toList());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled) {
+            return true;
+        }
+        // 长时间的流式导出会占住名额并拉高延迟样本, 不参与限制
+        for (RequestMatcher matcher : excludedMatchers) {
+            if (matcher.matches(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        Partition partition = resolvePartition(request);
+        int inFlight = partition.limiter.tryAcquire();
+        if (inFlight < 0) {
+            partition.rejected.increment();
+            logRejection(partition);
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            // 异步请求 (BCrypt) 在结果写出后才释放名额
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        partition.limiter.release(System.nanoTime() - start, inFlight);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                partition.limiter.release(System.nanoTime() - start, inFlight);
+            }
+        }
+    }
+
+    private Partition resolvePartition(HttpServletRequest request) {
+        for (Partition partition : partitions) {
+            if (partition.matcher.matches(request)) {
+                return partition;
+            }
+        }
+        return defaultPartition;
+    }
+
+    private static void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.setContentLength(REJECTION_BODY.length);
+        response.getOutputStream().write(REJECTION_BODY);
+    }
+
+    private void logRejection(Partition partition) {
+        long now = System.nanoTime();
+        long next = nextRejectionLogAt.get();
+        if (now - next >= 0 && nextRejectionLogAt.compareAndSet(next, now + REJECTION_LOG_INTERVAL_NANOS)) {
+            long count = suppressedRejections.getAndSet(0);
+            logger.warn("Request rejected, concurrency limit {} reached for partition {} ({} similar messages suppressed)",
+                    partition.limiter.getLimit(), partition.name, count);
+        } else {
+            suppressedRejections.incrementAndGet();
+        }
+    }
+
+    private static final class Partition {
+        private final String name;
+        private final RequestMatcher matcher;
+        private final GradientLimiter limiter;
+        private final Counter rejected;
+
+        Partition(String name, RequestMatcher matcher, GradientLimiter limiter, MeterRegistry meterRegistry) {
+            this.name = name;
+            this.matcher = matcher;
+            this.limiter = limiter;
+            Gauge.builder("quickstore.concurrency.limit", limiter, GradientLimiter::getLimit)
+                    .description("Current adaptive concurrency limit")
+                    .tag("partition", name)
+                    .register(meterRegistry);
+            Gauge.builder("quickstore.concurrency.in.flight", limiter, GradientLimiter::getInFlight)
+                    .description("Requests currently holding a concurrency permit")
+                    .tag("partition", name)
+                    .register(meterRegistry);
+            this.rejected = Counter.builder("quickstore.concurrency.rejected")
+                    .description("Requests rejected because the concurrency limit was reached")
+                    .tag("partition", name)
+                    .register(meterRegistry);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.quickstore.filter;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按延迟梯度自适应调整的并发上限 (思路与 Netflix concurrency-limits 的 Gradient2 相同).
+ * 每个采样窗口结束时比较窗口平均延迟 (短期) 和它的长期指数平均:
+ * 短期延迟明显高于长期基线说明请求开始排队, 上限按比例收缩; 延迟平稳时每个窗口增加 sqrt(limit) 的余量.
+ * 每个请求结束时只做无锁的累加, 窗口到期后由 CAS 成功的那个线程结算并调整上限.
+ */
+class GradientLimiter {
+
+    // 每个窗口的调整只生效一部分, 避免上限随单个窗口的噪声剧烈抖动
+    private static final double SMOOTHING = 0.2;
+    // 长期基线约为最近 600 个窗口的平均值
+    private static final int LONG_WINDOW = 600;
+    private static final double MIN_GRADIENT = 0.5;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final long windowNanos;
+    private final int minWindowSamples;
+    private final double rttTolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private volatile int limit;
+
+    // 当前窗口的统计, 请求结束时无锁累加
+    private final AtomicLong windowStart;
+    private final LongAdder windowRttSum = new LongAdder();
+    private final LongAdder windowSamples = new LongAdder();
+    private final LongAccumulator windowMaxInFlight = new LongAccumulator(Math::max, 0);
+
+    // 以下字段只在 synchronized 的 adjust 中访问, 每个窗口最多一次
+    private double estimatedLimit;
+    private double longRttNanos;
+
+    GradientLimiter(int initialLimit, int minLimit, int maxLimit, long windowNanos, int minWindowSamples,
+                    double rttTolerance) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.windowNanos = windowNanos;
+        this.minWindowSamples = minWindowSamples;
+        this.rttTolerance = rttTolerance;
+        this.estimatedLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.limit = (int) estimatedLimit;
+        this.windowStart = new AtomicLong(System.nanoTime());
+    }
+
+    /**
+     * 未达到上限时占用一个名额并返回进入时的并发数, 否则返回 -1
+     */
+    int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= limit) {
+                return -1;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    void release(long rttNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        onSample(rttNanos, inFlightAtStart, System.nanoTime());
+    }
+
+    int getLimit() {
+        return limit;
+    }
+
+    int getInFlight() {
+        return inFlight.get();
+    }
+
+    private void onSample(long rttNanos, int inFlightAtStart, long now) {
+        windowRttSum.add(rttNanos);
+        windowSamples.increment();
+        windowMaxInFlight.accumulate(inFlightAtStart);
+        long start = windowStart.get();
+        if (now - start < windowNanos || windowSamples.sum() < minWindowSamples) {
+            return;
+        }
+        // 只有一个线程能结算这个窗口, 其他线程的样本计入下一个窗口
+        if (!windowStart.compareAndSet(start, now)) {
+            return;
+        }
+
+        // 清零与并发的累加之间没有原子性, 边界上的少量样本可能被计入相邻窗口, 对平均延迟影响可以忽略
+        long samples = windowSamples.sumThenReset();
+        long rttSum = windowRttSum.sumThenReset();
+        int maxInFlight = (int) windowMaxInFlight.getThenReset();
+        if (samples > 0) {
+            adjust((double) rttSum / samples, maxInFlight);
+        }
+    }
+
+    private synchronized void adjust(double shortRtt, int maxInFlight) {
+        if (longRttNanos == 0) {
+            longRttNanos = shortRtt;
+        } else {
+            longRttNanos += (shortRtt - longRttNanos) / LONG_WINDOW;
+        }
+        // 过载结束后长期基线被抬高, 加快回落, 否则要很久才能重新识别出排队
+        if (longRttNanos / shortRtt > 2) {
+            longRttNanos *= 0.95;
+        }
+        // 并发远低于上限时延迟反映不出上限是否合适, 不调整, 否则空闲时上限会一直增长
+        if (maxInFlight < estimatedLimit / 2) {
+            return;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, rttTolerance * longRttNanos / shortRtt));
+        double newLimit = estimatedLimit * gradient + Math.sqrt(estimatedLimit);
+        estimatedLimit = estimatedLimit * (1 - SMOOTHING) + newLimit * SMOOTHING;
+        estimatedLimit = Math.max(minLimit, Math.min(maxLimit, estimatedLimit));
+        limit = (int) estimatedLimit;
+    }
+}
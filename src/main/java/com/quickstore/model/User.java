@@ -9,7 +9,9 @@ import java.time.LocalDateTime;
 @Table(name = "users")
 public class User {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // pooled 序列而不是 IDENTITY, 否则 Hibernate 无法批量插入
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "users_id_seq")
+    @SequenceGenerator(name = "users_id_seq", sequenceName = "users_id_seq", allocationSize = 50)
     private Long id;
 
     @Column(unique = true, nullable = false)
@@ -24,11 +26,30 @@ public class User {
     @Column
     private String role;
 
+    // 每次吊销令牌时加一, 令牌中的版本号低于此值即失效
+    @Column(name = "token_version", nullable = false)
+    private int tokenVersion;
+
+    // 乐观锁版本号, 批量 UPDATE 语句中需要手动加一
+    @Version
+    @Column(nullable = false)
+    private long version;
+
     @Column(name = "created_at")
     private LocalDateTime createdAt;
 
+    // 批量 UPDATE 语句中需要手动设置
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
+        updatedAt = createdAt;
+    }
+
+    @PreUpdate
+    protected void onUpdate() {
+        updatedAt = LocalDateTime.now();
     }
 } 
\ No newline at end of file
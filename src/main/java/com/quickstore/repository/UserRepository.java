@@ -1,8 +1,171 @@
 package com.quickstore.repository;
 
+import com.quickstore.config.CacheConfig;
+import com.quickstore.dto.UserSnapshot;
+import com.quickstore.dto.UserSummary;
 import com.quickstore.model.User;
+import jakarta.persistence.QueryHint;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_CACHEABLE;
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.HibernateHints.HINT_READ_ONLY;
 
 public interface UserRepository extends JpaRepository<User, Long> {
+    // 不缓存: 登录校验密码、修改密码读取版本号都需要数据库中的当前值
     User findByUsername(String username);
-} 
\ No newline at end of file
+
+    @Cacheable(cacheNames = CacheConfig.USERS_BY_USERNAME, key = "#p0", unless = "#result == null")
+    @Query("select new com.quickstore.dto.UserSnapshot(u.id, u.username, u.role) from User u " +
+            "where u.username = :username")
+    UserSnapshot findSnapshotByUsername(@Param("username") String username);
+
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, key = "#result.username")
+    <S extends User> S save(S entity);
+
+    // 按ID删除时无法得知用户名, 直接清空用户名缓存
+    @Override
+    @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    void deleteById(Long id);
+
+    // 快照中没有令牌版本号和密码哈希, 只改动这些列的语句不需要清除缓存
+    @Modifying
+    @Transactional
+    @Query("update User u set u.tokenVersion = u.tokenVersion + 1, u.version = u.version + 1, " +
+            "u.updatedAt = local datetime where u.id = :id")
+    int incrementTokenVersion(@Param("id") Long id);
+
+    // 角色不变时只更新姓名; 返回 0 表示用户不存在或角色已变化
+    @Modifying
+    @Transactional
+    @Query("update User u set u.fullName = :fullName, u.version = u.version + 1, u.updatedAt = local datetime " +
+            "where u.id = :id and u.role = :role")
+    int updateFullNameIfRoleUnchanged(@Param("id") Long id, @Param("fullName") String fullName,
+                                      @Param("role") String role);
+
+    // 请求未指定角色时只更新姓名
+    @Modifying
+    @Transactional
+    @Query("update User u set u.fullName = :fullName, u.version = u.version + 1, u.updatedAt = local datetime " +
+            "where u.id = :id")
+    int updateFullName(@Param("id") Long id, @Param("fullName") String fullName);
+
+    // 角色变化后旧令牌中的角色声明失效, 同一条语句中吊销令牌
+    @Modifying
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    @Query("update User u set u.fullName = :fullName, u.role = :role, " +
+            "u.tokenVersion = u.tokenVersion + 1, u.version = u.version + 1, u.updatedAt = local datetime where u.id = :id")
+    int updateProfileAndRevokeTokens(@Param("id") Long id, @Param("fullName") String fullName,
+                                     @Param("role") String role);
+
+    // 带版本号条件, 返回 0 表示用户已被并发修改
+    @Modifying
+    @Transactional
+    @Query("update User u set u.passwordHash = :passwordHash, u.tokenVersion = u.tokenVersion + 1, " +
+            "u.version = u.version + 1, u.updatedAt = local datetime where u.id = :id and u.version = :version")
+    int updatePasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash,
+                           @Param("version") long version);
+
+    @Modifying
+    @Transactional
+    @Query("update User u set u.passwordHash = :passwordHash, u.tokenVersion = u.tokenVersion + 1, " +
+            "u.version = u.version + 1, u.updatedAt = local datetime where u.id = :id")
+    int resetPasswordHash(@Param("id") Long id, @Param("passwordHash") String passwordHash);
+
+    // 密码本身没有变化: 不吊销令牌也不增加版本号, 以免与并发的修改密码冲突.
+    // 以旧哈希为条件, 期间密码被修改或重置时不覆盖
+    @Modifying
+    @Transactional
+    @Query("update User u set u.passwordHash = :newHash where u.id = :id and u.passwordHash = :currentHash")
+    int replacePasswordHash(@Param("id") Long id, @Param("currentHash") String currentHash,
+                            @Param("newHash") String newHash);
+
+    @Modifying
+    @Transactional
+    @CacheEvict(cacheNames = CacheConfig.USERS_BY_USERNAME, allEntries = true)
+    @Query("delete from User u where u.id = :id")
+    int deleteUserById(@Param("id") Long id);
+
+    // 由 users 表上的触发器维护, 见 V7__users_table_version.sql 和 V9__users_table_version_row_trigger.sql
+    @Query(value = "select version from user_table_version where id = 1", nativeQuery = true)
+    long findTableVersion();
+
+    @Query("select u.tokenVersion from User u where u.id = :id")
+    Integer findTokenVersionById(@Param("id") Long id);
+
+    // 吊销表只需要吊销过令牌的用户
+    @Query("select u.id, u.tokenVersion from User u where u.tokenVersion > 0")
+    List<Object[]> findRevokedTokenVersions();
+
+    // 由 users 表上的删除触发器写入, 见 V8__deleted_users.sql
+    @Query(value = "select user_id from deleted_users", nativeQuery = true)
+    List<Long> findDeletedUserIds();
+
+    @Modifying
+    @Transactional
+    @Query(value = "delete from deleted_users where deleted_at < localtimestamp - make_interval(secs => :seconds)",
+            nativeQuery = true)
+    int deleteTombstonesOlderThan(@Param("seconds") long seconds);
+
+    // 用户名已存在时既不插入也不报错, 返回 null. 检查和插入在同一条语句中完成, 并发注册不会触发唯一约束异常
+    @Transactional
+    @Query(value = "insert into users (username, password_hash, full_name, role, created_at, updated_at) " +
+            "values (:username, :passwordHash, :fullName, :role, :now, :now) " +
+            "on conflict (username) do nothing returning id", nativeQuery = true)
+    Long insertIfUsernameAvailable(@Param("username") String username, @Param("passwordHash") String passwordHash,
+                                   @Param("fullName") String fullName, @Param("role") String role,
+                                   @Param("now") LocalDateTime now);
+
+    boolean existsByUsername(String username);
+
+    @Query("select u.username from User u")
+    List<String> findAllUsernames();
+
+    @Query("select u.username from User u where u.username in :usernames")
+    List<String> findExistingUsernames(@Param("usernames") Collection<String> usernames);
+
+    @Query("select new com.quickstore.dto.UserSummary(u.id, u.username, u.fullName, u.role, u.createdAt) " +
+            "from User u where u.id = :id")
+    UserSummary findSummaryById(@Param("id") Long id);
+
+    @Query("select new com.quickstore.dto.UserSummary(u.id, u.username, u.fullName, u.role, u.createdAt) " +
+            "from User u where u.id > :afterId order by u.id asc")
+    List<UserSummary> findSummariesAfterId(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("select new com.quickstore.dto.UserSummary(u.id, u.username, u.fullName, u.role, u.createdAt) " +
+            "from User u where u.username > :afterUsername order by u.username asc")
+    List<UserSummary> findSummariesAfterUsername(@Param("afterUsername") String afterUsername, Pageable pageable);
+
+    // pattern 已转小写并转义, lower(...) 与 V6 的表达式索引一致, 按用户名做键集分页
+    @Query("select new com.quickstore.dto.UserSummary(u.id, u.username, u.fullName, u.role, u.createdAt) " +
+            "from User u where (lower(u.username) like :pattern escape '\\' " +
+            "or lower(u.fullName) like :pattern escape '\\') " +
+            "and (:role is null or u.role = :role) and u.username > :afterUsername order by u.username asc")
+    List<UserSummary> searchSummaries(@Param("pattern") String pattern, @Param("role") String role,
+                                      @Param("afterUsername") String afterUsername, Pageable pageable);
+
+    // 服务端游标: 需要在只读事务中消费, fetch size 控制每次从 Postgres 取回的行数
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READ_ONLY, value = "true"),
+            @QueryHint(name = HINT_CACHEABLE, value = "false")
+    })
+    @Query("select u from User u order by u.id asc")
+    Stream<User> streamAllByOrderByIdAsc();
+}
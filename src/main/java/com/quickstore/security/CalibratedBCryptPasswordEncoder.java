@@ -0,0 +1,88 @@
+package com.quickstore.security;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+
+/**
+ * 强度在启动时按目标耗时校准的 BCrypt 编码器. 已有哈希的强度低于当前强度时需要重新编码;
+ * 高于当前强度的不降级, 否则多个实例各自校准出不同强度时, 同一用户的哈希会在它们之间来回重写.
+ */
+public class CalibratedBCryptPasswordEncoder extends BCryptPasswordEncoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(CalibratedBCryptPasswordEncoder.class);
+
+    public static final long DEFAULT_TARGET_MILLIS = 100;
+    public static final int DEFAULT_MIN_STRENGTH = 10;
+    public static final int DEFAULT_MAX_STRENGTH = 14;
+
+    // 强度每加 1 耗时翻倍, 用较低强度测量后按比例推算, 避免启动时做多次高强度哈希
+    private static final int PROBE_STRENGTH = 8;
+    private static final int PROBE_WARMUP = 3;
+    private static final int PROBE_SAMPLES = 5;
+
+    private final int strength;
+
+    public CalibratedBCryptPasswordEncoder(int strength) {
+        super(strength);
+        this.strength = strength;
+    }
+
+    public int getStrength() {
+        return strength;
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        int current = strengthOf(encodedPassword);
+        // 格式不正确的哈希本来就无法通过校验, 不需要升级
+        return current > 0 && current < strength;
+    }
+
+    /**
+     * 选择单次哈希耗时最接近 targetMillis 的强度, 限制在 [minStrength, maxStrength] 内.
+     */
+    public static int calibrate(long targetMillis, int minStrength, int maxStrength) {
+        BCryptPasswordEncoder probe = new BCryptPasswordEncoder(PROBE_STRENGTH);
+        for (int i = 0; i < PROBE_WARMUP; i++) {
+            probe.encode("calibration");
+        }
+        long probeNanos = Long.MAX_VALUE;
+        for (int i = 0; i < PROBE_SAMPLES; i++) {
+            long start = System.nanoTime();
+            probe.encode("calibration");
+            probeNanos = Math.min(probeNanos, System.nanoTime() - start);
+        }
+
+        double targetNanos = targetMillis * 1_000_000.0;
+        int best = minStrength;
+        double bestDistance = Double.MAX_VALUE;
+        for (int candidate = minStrength; candidate <= maxStrength; candidate++) {
+            double distance = Math.abs(estimateNanos(probeNanos, candidate) - targetNanos);
+            if (distance < bestDistance) {
+                best = candidate;
+                bestDistance = distance;
+            }
+        }
+        logger.info("Calibrated BCrypt strength {} (~{} ms per hash, target {} ms)",
+                best, Math.round(estimateNanos(probeNanos, best) / 1_000_000.0), targetMillis);
+        return best;
+    }
+
+    private static double estimateNanos(long probeNanos, int strength) {
+        return probeNanos * Math.pow(2, strength - PROBE_STRENGTH);
+    }
+
+    // $2a$10$... 中的强度, 无法解析时返回 -1
+    static int strengthOf(String encodedPassword) {
+        if (encodedPassword == null || encodedPassword.length() < 7 || encodedPassword.charAt(0) != '$'
+                || encodedPassword.charAt(3) != '$' || encodedPassword.charAt(6) != '$') {
+            return -1;
+        }
+        try {
+            return Integer.parseInt(encodedPassword.substring(4, 6));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+}
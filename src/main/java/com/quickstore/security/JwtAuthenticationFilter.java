@@ -1,54 +1,194 @@
 package com.quickstore.security;
 
+import com.quickstore.dto.UserSnapshot;
+import com.quickstore.filter.AccessLogFilter;
+import com.quickstore.service.UserService;
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.web.authentication.WebAuthenticationDetailsSource;
+import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
+import org.springframework.security.web.util.matcher.RequestMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 @Component
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
+    private static final long REJECTION_LOG_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(10);
+
     private final JwtTokenProvider tokenProvider;
-    private final UserDetailsService userDetailsService;
+    private final UserService userService;
+    private final VerifiedTokenCache tokenCache;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final boolean claimsOnly;
+    private final List<RequestMatcher> freshLookupMatchers;
+    private final Timer authenticatedTimer;
+    private final Timer anonymousTimer;
+    private final AtomicLong nextRejectionLogAt = new AtomicLong(System.nanoTime());
+    private final AtomicLong suppressedRejections = new AtomicLong();
 
-    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider, UserDetailsService userDetailsService) {
+    public JwtAuthenticationFilter(JwtTokenProvider tokenProvider,
+                                   UserService userService,
+                                   VerifiedTokenCache tokenCache,
+                                   TokenRevocationRegistry revocationRegistry,
+                                   @Value("${spring.security.jwt.claims-only:true}") boolean claimsOnly,
+                                   @Value("${spring.security.jwt.fresh-lookup-paths:}") List<String> freshLookupPaths,
+                                   MeterRegistry meterRegistry) {
         this.tokenProvider = tokenProvider;
-        this.userDetailsService = userDetailsService;
+        this.userService = userService;
+        this.tokenCache = tokenCache;
+        this.revocationRegistry = revocationRegistry;
+        this.claimsOnly = claimsOnly;
+        this.freshLookupMatchers = freshLookupPaths.stream()
+                .filter(StringUtils::hasText)
+                .map(path -> (RequestMatcher) new AntPathRequestMatcher(path.trim()))
+                .toList();
+        this.authenticatedTimer = filterTimer(meterRegistry, "authenticated");
+        this.anonymousTimer = filterTimer(meterRegistry, "anonymous");
+    }
+
+    private static Timer filterTimer(MeterRegistry meterRegistry, String outcome) {
+        return Timer.builder("quickstore.jwt.filter")
+                .description("Time spent resolving the authenticated user from the bearer token")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
     }
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
             throws ServletException, IOException {
+        long start = System.nanoTime();
+        boolean authenticated = false;
         try {
             String jwt = getJwtFromRequest(request);
 
-            if (StringUtils.hasText(jwt) && tokenProvider.validateToken(jwt)) {
-                String username = tokenProvider.getUsernameFromToken(jwt);
-                UserDetails userDetails = userDetailsService.loadUserByUsername(username);
-                
-                UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
-                        userDetails, null, userDetails.getAuthorities());
-                authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
+            if (StringUtils.hasText(jwt)) {
+                UserDetails userDetails = resolveUserDetails(jwt, request);
+
+                if (userDetails != null) {
+                    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+                            userDetails, null, userDetails.getAuthorities());
+                    authentication.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
 
-                SecurityContextHolder.getContext().setAuthentication(authentication);
+                    SecurityContextHolder.getContext().setAuthentication(authentication);
+                    request.setAttribute(AccessLogFilter.AUTHENTICATED_USER_ATTRIBUTE, userDetails.getUsername());
+                    authenticated = true;
+                }
             }
         } catch (Exception ex) {
-            logger.error("Could not set user authentication in security context", ex);
+            logRejectedToken("could not set user authentication in security context: " + ex.getMessage(), ex);
         }
+        (authenticated ? authenticatedTimer : anonymousTimer).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         filterChain.doFilter(request, response);
     }
 
+    /**
+     * 先查已验证令牌缓存, 未命中时才校验签名; 无状态模式下直接用令牌中的角色声明构建用户,
+     * 旧令牌(无角色声明)或需要强制刷新的路径仍然查询数据库. 两种情况都会检查内存中的吊销表
+     */
+    private UserDetails resolveUserDetails(String jwt, HttpServletRequest request) {
+        boolean freshLookup = requiresFreshLookup(request);
+        if (!freshLookup) {
+            VerifiedTokenCache.Entry cached = tokenCache.get(jwt);
+            if (cached != null) {
+                if (revocationRegistry.isRevoked(cached.userId(), cached.tokenVersion())) {
+                    logRejectedToken("revoked token", null);
+                    return null;
+                }
+                return cached.userDetails();
+            }
+        }
+
+        Claims claims = tokenProvider.parseToken(jwt);
+        if (claims == null) {
+            logRejectedToken("invalid or expired token", null);
+            return null;
+        }
+        if (tokenProvider.isRefreshToken(claims)) {
+            logRejectedToken("refresh token used as access token", null);
+            return null;
+        }
+
+        Long userId = tokenProvider.getUserId(claims);
+        int tokenVersion = tokenProvider.getTokenVersion(claims);
+        if (revocationRegistry.isRevoked(userId, tokenVersion)) {
+            logRejectedToken("revoked token", null);
+            return null;
+        }
+
+        String username = claims.getSubject();
+        String role = claims.get(JwtTokenProvider.CLAIM_ROLE, String.class);
+        UserDetails userDetails;
+
+        if (freshLookup) {
+            // 强制刷新的路径绕过用户缓存, 直接查询数据库
+            UserDetails loaded = userService.loadUserByUsername(username);
+            // 缓存中不保留密码哈希
+            userDetails = new User(loaded.getUsername(), "", loaded.getAuthorities());
+        } else if (!claimsOnly || !StringUtils.hasText(role)) {
+            UserSnapshot snapshot = userService.findSnapshotByUsername(username);
+            if (snapshot == null) {
+                logRejectedToken("user not found", null);
+                return null;
+            }
+            userDetails = new User(snapshot.username(), "",
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + snapshot.role().toUpperCase())));
+        } else {
+            userDetails = new User(username, "",
+                    Collections.singletonList(new SimpleGrantedAuthority("ROLE_" + role.toUpperCase())));
+        }
+
+        if (claims.getExpiration() != null) {
+            tokenCache.put(jwt, userDetails, userId, tokenVersion, claims.getExpiration().getTime());
+        }
+        return userDetails;
+    }
+
+    /**
+     * 无效令牌的日志按时间窗口限流, 每个窗口最多输出一条并附带被抑制的条数; 堆栈只在 DEBUG 级别输出
+     */
+    private void logRejectedToken(String reason, Exception ex) {
+        long now = System.nanoTime();
+        long next = nextRejectionLogAt.get();
+        if (now - next >= 0 && nextRejectionLogAt.compareAndSet(next, now + REJECTION_LOG_INTERVAL_NANOS)) {
+            long count = suppressedRejections.getAndSet(0);
+            logger.warn("Rejected bearer token: " + reason + " (" + count + " similar messages suppressed)");
+            if (ex != null && logger.isDebugEnabled()) {
+                logger.debug("Bearer token rejection details", ex);
+            }
+        } else {
+            suppressedRejections.incrementAndGet();
+        }
+    }
+
+    private boolean requiresFreshLookup(HttpServletRequest request) {
+        for (RequestMatcher matcher : freshLookupMatchers) {
+            if (matcher.matches(request)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private String getJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader("Authorization");
         if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
@@ -56,4 +196,4 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         }
         return null;
     }
-} 
\ No newline at end of file
+}
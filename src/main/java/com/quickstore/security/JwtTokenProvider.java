@@ -1,8 +1,12 @@
 package com.quickstore.security;
 
+import com.quickstore.model.User;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
@@ -10,58 +14,138 @@ import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class JwtTokenProvider {
 
-    @Value("${spring.security.jwt.secret}")
-    private String jwtSecret;
+    public static final String CLAIM_ROLE = "role";
+    public static final String CLAIM_USER_ID = "uid";
+    public static final String CLAIM_TOKEN_VERSION = "ver";
+    public static final String CLAIM_TOKEN_TYPE = "typ";
+    public static final String TOKEN_TYPE_ACCESS = "access";
+    public static final String TOKEN_TYPE_REFRESH = "refresh";
 
-    @Value("${spring.security.jwt.expiration}")
-    private long jwtExpiration;
+    private static final String ROLE_PREFIX = "ROLE_";
 
-    private Key getSigningKey() {
-        byte[] keyBytes = jwtSecret.getBytes();
-        return Keys.hmacShaKeyFor(keyBytes);
+    private final long jwtExpiration;
+    private final long refreshExpiration;
+    private final Key signingKey;
+    private final JwtParser jwtParser;
+    private final Timer validTokenTimer;
+    private final Timer invalidTokenTimer;
+
+    public JwtTokenProvider(@Value("${spring.security.jwt.secret}") String jwtSecret,
+                            @Value("${spring.security.jwt.expiration}") long jwtExpiration,
+                            @Value("${spring.security.jwt.refresh-expiration}") long refreshExpiration,
+                            MeterRegistry meterRegistry) {
+        this.jwtExpiration = jwtExpiration;
+        this.refreshExpiration = refreshExpiration;
+        this.validTokenTimer = verifyTimer(meterRegistry, "valid");
+        this.invalidTokenTimer = verifyTimer(meterRegistry, "invalid");
+        // 密钥和解析器在启动时构建一次, JwtParser 是不可变且线程安全的
+        this.signingKey = Keys.hmacShaKeyFor(jwtSecret.getBytes());
+        this.jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .build();
+    }
+
+    private static Timer verifyTimer(MeterRegistry meterRegistry, String result) {
+        return Timer.builder("quickstore.jwt.verify")
+                .description("JWT signature verification and claims parsing")
+                .tag("result", result)
+                .register(meterRegistry);
     }
 
     public String generateToken(UserDetails userDetails) {
         Map<String, Object> claims = new HashMap<>();
-        return createToken(claims, userDetails.getUsername());
+        for (GrantedAuthority authority : userDetails.getAuthorities()) {
+            String name = authority.getAuthority();
+            if (name != null && name.startsWith(ROLE_PREFIX)) {
+                claims.put(CLAIM_ROLE, name.substring(ROLE_PREFIX.length()).toLowerCase());
+                break;
+            }
+        }
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_ACCESS);
+        return createToken(claims, userDetails.getUsername(), jwtExpiration);
+    }
+
+    /**
+     * 生成携带角色、用户ID和令牌版本的短期访问令牌, 过滤器可以直接从声明中还原认证信息而无需查询数据库
+     */
+    public String generateToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_ACCESS);
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        if (user.getRole() != null) {
+            claims.put(CLAIM_ROLE, user.getRole().toLowerCase());
+        }
+        return createToken(claims, user.getUsername(), jwtExpiration);
+    }
+
+    /**
+     * 生成长期刷新令牌, 只能用于 /auth/refresh 换取新的访问令牌
+     */
+    public String generateRefreshToken(User user) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(CLAIM_TOKEN_TYPE, TOKEN_TYPE_REFRESH);
+        claims.put(CLAIM_USER_ID, user.getId());
+        claims.put(CLAIM_TOKEN_VERSION, user.getTokenVersion());
+        return createToken(claims, user.getUsername(), refreshExpiration);
     }
 
-    private String createToken(Map<String, Object> claims, String subject) {
+    private String createToken(Map<String, Object> claims, String subject, long expiration) {
         Date now = new Date();
-        Date expiryDate = new Date(now.getTime() + jwtExpiration);
+        Date expiryDate = new Date(now.getTime() + expiration);
 
         return Jwts.builder()
                 .setClaims(claims)
                 .setSubject(subject)
                 .setIssuedAt(now)
                 .setExpiration(expiryDate)
-                .signWith(getSigningKey())
+                .signWith(signingKey)
                 .compact();
     }
 
-    public String getUsernameFromToken(String token) {
-        Claims claims = Jwts.parserBuilder()
-                .setSigningKey(getSigningKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody();
+    /**
+     * 解析并校验令牌, 只做一次签名计算; 令牌无效或已过期时返回 null
+     */
+    public Claims parseToken(String token) {
+        long start = System.nanoTime();
+        try {
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            validTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return claims;
+        } catch (JwtException | IllegalArgumentException e) {
+            invalidTokenTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return null;
+        }
+    }
+
+    public boolean isRefreshToken(Claims claims) {
+        return TOKEN_TYPE_REFRESH.equals(claims.get(CLAIM_TOKEN_TYPE, String.class));
+    }
+
+    public Long getUserId(Claims claims) {
+        return claims.get(CLAIM_USER_ID, Long.class);
+    }
+
+    // 没有版本号的旧令牌视为版本 0
+    public int getTokenVersion(Claims claims) {
+        Integer version = claims.get(CLAIM_TOKEN_VERSION, Integer.class);
+        return version != null ? version : 0;
+    }
+
+    public Claims getClaimsFromToken(String token) {
+        return jwtParser.parseClaimsJws(token).getBody();
+    }
 
-        return claims.getSubject();
+    public String getUsernameFromToken(String token) {
+        return getClaimsFromToken(token).getSubject();
     }
 
     public boolean validateToken(String token) {
-        try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
-        } catch (JwtException | IllegalArgumentException e) {
-            return false;
-        }
+        return parseToken(token) != null;
     }
-} 
\ No newline at end of file
+}
@@ -0,0 +1,53 @@
+package com.quickstore.security;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 在专用线程池上执行密码哈希和校验. 线程池饱和时 supplyAsync 会直接抛出 TaskRejectedException.
+ */
+@Component
+public class PasswordHashingService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final TaskExecutor executor;
+    private final Timer encodeTimer;
+    private final Timer matchesTimer;
+
+    public PasswordHashingService(PasswordEncoder passwordEncoder,
+                                  @Qualifier("passwordHashingExecutor") TaskExecutor executor,
+                                  MeterRegistry meterRegistry) {
+        this.passwordEncoder = passwordEncoder;
+        this.executor = executor;
+        this.encodeTimer = hashTimer(meterRegistry, "encode");
+        this.matchesTimer = hashTimer(meterRegistry, "matches");
+    }
+
+    private static Timer hashTimer(MeterRegistry meterRegistry, String operation) {
+        return Timer.builder("quickstore.password.hash")
+                .description("Password hashing time on the hashing executor, excluding queue wait")
+                .tag("operation", operation)
+                .register(meterRegistry);
+    }
+
+    public CompletableFuture<String> encode(CharSequence rawPassword) {
+        return CompletableFuture.supplyAsync(
+                () -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)), executor);
+    }
+
+    // 哈希的算法与当前配置不同或强度低于当前配置时需要重新编码
+    public boolean upgradeEncoding(String encodedPassword) {
+        return passwordEncoder.upgradeEncoding(encodedPassword);
+    }
+
+    public CompletableFuture<Boolean> matches(CharSequence rawPassword, String encodedPassword) {
+        return CompletableFuture.supplyAsync(
+                () -> matchesTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)), executor);
+    }
+}
@@ -0,0 +1,114 @@
+package com.quickstore.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 已验证令牌的本地缓存. 以令牌的 SHA-256 摘要为键, 保存验证后的用户信息;
+ * 条目在令牌 exp 到期时失效, 超过容量时按最近最少使用淘汰.
+ */
+@Component
+public class VerifiedTokenCache implements MeterBinder {
+
+    private final boolean enabled;
+    private final Cache<String, Entry> cache;
+
+    public VerifiedTokenCache(@Value("${spring.security.jwt.cache.enabled:true}") boolean enabled,
+                              @Value("${spring.security.jwt.cache.max-size:10000}") long maxSize) {
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfter(new Expiry<String, Entry>() {
+                    @Override
+                    public long expireAfterCreate(String key, Entry value, long currentTime) {
+                        return TimeUnit.MILLISECONDS.toNanos(
+                                Math.max(0, value.expiresAtMillis() - System.currentTimeMillis()));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String key, Entry value, long currentTime, long currentDuration) {
+                        return expireAfterCreate(key, value, currentTime);
+                    }
+
+                    @Override
+                    public long expireAfterRead(String key, Entry value, long currentTime, long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .recordStats()
+                .build();
+    }
+
+    public Entry get(String token) {
+        if (!enabled) {
+            return null;
+        }
+        Entry entry = cache.getIfPresent(digest(token));
+        if (entry == null) {
+            return null;
+        }
+        // 过期清理是惰性的, 读取时再确认一次
+        if (entry.expiresAtMillis() <= System.currentTimeMillis()) {
+            return null;
+        }
+        return entry;
+    }
+
+    public void put(String token, UserDetails userDetails, Long userId, int tokenVersion, long expiresAtMillis) {
+        if (enabled && expiresAtMillis > System.currentTimeMillis()) {
+            cache.put(digest(token), new Entry(userDetails, userId, tokenVersion, expiresAtMillis));
+        }
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, cache, "jwtTokens");
+    }
+
+    public Map<String, Object> getStats() {
+        CacheStats stats = cache.stats();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("size", cache.estimatedSize());
+        result.put("hits", stats.hitCount());
+        result.put("misses", stats.missCount());
+        result.put("evictions", stats.evictionCount());
+        result.put("hitRate", stats.hitRate());
+        return result;
+    }
+
+    private static String digest(String token) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(md.digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    /**
+     * 缓存的认证结果. 保留用户ID和令牌版本, 命中时仍需检查吊销状态
+     */
+    public record Entry(UserDetails userDetails, Long userId, int tokenVersion, long expiresAtMillis) {
+    }
+}
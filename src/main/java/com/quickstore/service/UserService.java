@@ -1,15 +1,40 @@
 package com.quickstore.service;
 
+import com.quickstore.dto.RegisterRequest;
+import com.quickstore.dto.UserImportResult;
+import com.quickstore.dto.UserSnapshot;
+import com.quickstore.dto.UserSummary;
 import com.quickstore.model.User;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import java.io.OutputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 public interface UserService extends UserDetailsService {
+    String SORT_BY_ID = "id";
+    String SORT_BY_USERNAME = "username";
+    String EXPORT_FORMAT_NDJSON = "ndjson";
+    String EXPORT_FORMAT_CSV = "csv";
+    String MATCH_PREFIX = "prefix";
+    String MATCH_CONTAINS = "contains";
+
     User findByUsername(String username);
+    UserSnapshot findSnapshotByUsername(String username);
     User save(User user);
+    boolean isUsernameTaken(String username);
+    boolean register(String username, String passwordHash, String fullName, String role);
     List<User> findAllUsers();
+    List<UserSummary> findUserSummaries(String sort, String after, int limit);
+    List<UserSummary> searchUsers(String query, String match, String role, String after, int limit);
+    long countUsers();
+    long getTableVersion();
+    void exportUsers(String format, OutputStream out);
+    List<UserImportResult> importUsers(List<RegisterRequest> requests);
     User findById(Long id);
-    void deleteUser(Long id);
-    void changePassword(String username, String oldPassword, String newPassword);
-    void resetPassword(Long userId, String newPassword);
+    UserSummary updateUser(Long id, String fullName, String role);
+    boolean deleteUser(Long id);
+    void revokeTokens(Long userId);
+    CompletableFuture<Void> changePassword(String username, String oldPassword, String newPassword);
+    CompletableFuture<Void> resetPassword(Long userId, String newPassword);
+    void upgradePasswordHashIfNeeded(Long userId, String currentHash, String rawPassword);
 } 
\ No newline at end of file
@@ -1,30 +1,96 @@
 package com.quickstore.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.quickstore.dto.RegisterRequest;
+import com.quickstore.dto.UserImportResult;
+import com.quickstore.dto.UserSnapshot;
+import com.quickstore.dto.UserSummary;
 import com.quickstore.model.User;
 import com.quickstore.repository.UserRepository;
+import com.quickstore.security.PasswordHashingService;
+import com.quickstore.security.TokenRevocationRegistry;
 import com.quickstore.service.UserService;
+import com.quickstore.util.BloomFilter;
+import com.quickstore.util.CsvUtils;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.EntityManager;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
-import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.security.authentication.BadCredentialsException;
 
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class UserServiceImpl implements UserService {
 
+    private static final Logger logger = LoggerFactory.getLogger(UserServiceImpl.class);
+    private static final int IMPORT_HASH_CHUNK_SIZE = 16;
+    // 过滤器按当前用户数的两倍分配, 两次重建之间用户数翻倍后误判率才会明显升高
+    private static final long USERNAME_FILTER_MIN_CAPACITY = 10_000;
+
     private final UserRepository userRepository;
-    private final PasswordEncoder passwordEncoder;
+    private final PasswordHashingService passwordHashingService;
+    private final EntityManager entityManager;
+    // ObjectWriter 不可变且线程安全, 复用可以省去每次导出重新查找序列化器
+    private final ObjectWriter summaryWriter;
+    private final Validator validator;
+    private final TokenRevocationRegistry revocationRegistry;
+    private final double usernameFilterFpp;
+    // 刷新令牌过期后被删除用户的令牌都已失效, 墓碑只需保留这么久
+    private final long tombstoneRetentionSeconds;
+    // 已存在用户名的布隆过滤器. 判断为不存在时跳过查重查询; 定期整体重建, 重建期间新注册的用户名可能丢失,
+    // 只会导致重复注册时多做一次 BCrypt, 最终仍由 insertIfUsernameAvailable 拒绝
+    private volatile BloomFilter usernameFilter;
 
-    public UserServiceImpl(UserRepository userRepository, PasswordEncoder passwordEncoder) {
+    public UserServiceImpl(UserRepository userRepository, PasswordHashingService passwordHashingService,
+                           EntityManager entityManager, ObjectMapper objectMapper, Validator validator,
+                           TokenRevocationRegistry revocationRegistry,
+                           @Value("${spring.security.username-filter.false-positive-rate:0.01}") double usernameFilterFpp,
+                           @Value("${spring.security.jwt.refresh-expiration}") long refreshExpirationMillis) {
         this.userRepository = userRepository;
-        this.passwordEncoder = passwordEncoder;
+        this.passwordHashingService = passwordHashingService;
+        this.entityManager = entityManager;
+        this.summaryWriter = objectMapper.writerFor(UserSummary.class);
+        this.validator = validator;
+        this.revocationRegistry = revocationRegistry;
+        this.usernameFilterFpp = usernameFilterFpp;
+        this.tombstoneRetentionSeconds = TimeUnit.MILLISECONDS.toSeconds(refreshExpirationMillis);
     }
 
+    // 认证相关的查询和写入缓存的查询都走主库, 副本的复制延迟会读到已修改的密码或角色
     @Override
+    @Transactional
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         User user = findByUsername(username);
         if (user == null) {
@@ -38,56 +104,349 @@ public class UserServiceImpl implements UserService {
     }
 
     @Override
+    @Transactional
     public User findByUsername(String username) {
         return userRepository.findByUsername(username);
     }
 
     @Override
+    @Transactional
+    public UserSnapshot findSnapshotByUsername(String username) {
+        return userRepository.findSnapshotByUsername(username);
+    }
+
+    @Override
+    @Transactional
     public User save(User user) {
         if (user.getRole() != null) {
             user.setRole(user.getRole().toLowerCase());
         }
-        return userRepository.save(user);
+        User saved = userRepository.save(user);
+        usernameFilter.put(saved.getUsername());
+        return saved;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public boolean isUsernameTaken(String username) {
+        // 过滤器判断为不存在时一定不存在, 不需要查询数据库
+        return usernameFilter.mightContain(username) && userRepository.existsByUsername(username);
+    }
+
+    @Override
+    public boolean register(String username, String passwordHash, String fullName, String role) {
+        Long id = userRepository.insertIfUsernameAvailable(username, passwordHash, fullName,
+                role == null ? "staff" : role.toLowerCase(), LocalDateTime.now());
+        // 插入冲突时用户名同样已存在
+        usernameFilter.put(username);
+        return id != null;
+    }
+
+    /**
+     * 启动时加载所有用户名, 之后定期按当前用户数重建: 移除已删除的用户名, 并加入其他实例上注册的用户名
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${spring.security.username-filter.rebuild-interval:3600000}",
+            initialDelayString = "${spring.security.username-filter.rebuild-interval:3600000}")
+    public void rebuildUsernameFilter() {
+        List<String> usernames = userRepository.findAllUsernames();
+        BloomFilter filter = new BloomFilter(Math.max(USERNAME_FILTER_MIN_CAPACITY, usernames.size() * 2L),
+                usernameFilterFpp);
+        usernames.forEach(filter::put);
+        usernameFilter = filter;
+        logger.debug("Username filter rebuilt, {} users, {} bits", usernames.size(), filter.bitSize());
     }
 
     @Override
+    @Transactional(readOnly = true)
     public List<User> findAllUsers() {
         return userRepository.findAll();
     }
 
     @Override
+    @Transactional(readOnly = true)
+    public List<UserSummary> findUserSummaries(String sort, String after, int limit) {
+        PageRequest page = PageRequest.of(0, limit);
+        switch (sort) {
+            case SORT_BY_ID:
+                return userRepository.findSummariesAfterId(after == null ? 0L : Long.parseLong(after), page);
+            case SORT_BY_USERNAME:
+                return userRepository.findSummariesAfterUsername(after == null ? "" : after, page);
+            default:
+                throw new IllegalArgumentException("Unsupported sort key: " + sort);
+        }
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<UserSummary> searchUsers(String query, String match, String role, String after, int limit) {
+        String escaped = escapeLike(query.toLowerCase());
+        String pattern;
+        switch (match) {
+            case MATCH_PREFIX:
+                pattern = escaped + "%";
+                break;
+            case MATCH_CONTAINS:
+                pattern = "%" + escaped + "%";
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported match mode: " + match);
+        }
+        // 预编译语句切换为通用计划后不知道匹配模式, 只能逐行扫描用户名索引; 本事务内强制使用定制计划
+        entityManager.createNativeQuery("select set_config('plan_cache_mode', 'force_custom_plan', true)")
+                .getSingleResult();
+        return userRepository.searchSummaries(pattern, role, after == null ? "" : after, PageRequest.of(0, limit));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long countUsers() {
+        return userRepository.count();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long getTableVersion() {
+        return userRepository.findTableVersion();
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public void exportUsers(String format, OutputStream out) {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+
+        try (Stream<User> users = userRepository.streamAllByOrderByIdAsc()) {
+            if (EXPORT_FORMAT_CSV.equals(format)) {
+                writer.write("id,username,fullName,role,createdAt\n");
+            }
+            users.forEach(user -> {
+                // 逐行写出后立即从持久化上下文中移除, 内存占用与表大小无关
+                entityManager.detach(user);
+                UserSummary row = new UserSummary(user.getId(), user.getUsername(), user.getFullName(),
+                        user.getRole(), user.getCreatedAt());
+                try {
+                    if (EXPORT_FORMAT_CSV.equals(format)) {
+                        writer.write(toCsvLine(row));
+                    } else {
+                        writer.write(summaryWriter.writeValueAsString(row));
+                    }
+                    writer.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String toCsvLine(UserSummary row) {
+        return String.join(",",
+                String.valueOf(row.id()),
+                CsvUtils.escape(row.username()),
+                CsvUtils.escape(row.fullName()),
+                CsvUtils.escape(row.role()),
+                row.createdAt() == null ? "" : row.createdAt().toString());
+    }
+
+    @Override
+    public List<UserImportResult> importUsers(List<RegisterRequest> requests) {
+        List<UserImportResult> results = new ArrayList<>(Collections.nCopies(requests.size(), null));
+        Map<String, Integer> pending = new LinkedHashMap<>();
+
+        for (int i = 0; i < requests.size(); i++) {
+            RegisterRequest request = requests.get(i);
+            Set<ConstraintViolation<RegisterRequest>> violations = validator.validate(request);
+            if (!violations.isEmpty()) {
+                String message = violations.stream()
+                        .map(ConstraintViolation::getMessage)
+                        .sorted()
+                        .collect(Collectors.joining("; "));
+                results.set(i, new UserImportResult(i, request.getUsername(), UserImportResult.STATUS_INVALID, message));
+            } else if (pending.containsKey(request.getUsername())) {
+                results.set(i, new UserImportResult(i, request.getUsername(), UserImportResult.STATUS_DUPLICATE,
+                        "Duplicate username in import"));
+            } else {
+                pending.put(request.getUsername(), i);
+            }
+        }
+
+        // 一次 IN 查询检查可能已存在的用户名, 过滤器判断为不存在的不需要查询
+        List<String> candidates = pending.keySet().stream().filter(usernameFilter::mightContain).toList();
+        if (!candidates.isEmpty()) {
+            for (String existing : userRepository.findExistingUsernames(candidates)) {
+                int row = pending.remove(existing);
+                results.set(row, new UserImportResult(row, existing, UserImportResult.STATUS_DUPLICATE,
+                        "Username already exists"));
+            }
+        }
+        if (pending.isEmpty()) {
+            return results;
+        }
+
+        // 分批提交到密码哈希线程池, 避免一次占满队列
+        List<Integer> rows = new ArrayList<>(pending.values());
+        List<User> users = new ArrayList<>(rows.size());
+        for (int from = 0; from < rows.size(); from += IMPORT_HASH_CHUNK_SIZE) {
+            List<Integer> chunk = rows.subList(from, Math.min(from + IMPORT_HASH_CHUNK_SIZE, rows.size()));
+            List<CompletableFuture<String>> hashes = chunk.stream()
+                    .map(row -> passwordHashingService.encode(requests.get(row).getPassword()))
+                    .toList();
+            CompletableFuture.allOf(hashes.toArray(new CompletableFuture[0])).join();
+
+            for (int j = 0; j < chunk.size(); j++) {
+                RegisterRequest request = requests.get(chunk.get(j));
+                User user = new User();
+                user.setUsername(request.getUsername());
+                user.setPasswordHash(hashes.get(j).join());
+                user.setFullName(request.getFullName());
+                user.setRole(request.getRole() == null ? "staff" : request.getRole().toLowerCase());
+                users.add(user);
+            }
+        }
+
+        // saveAll 在同一事务中按 hibernate.jdbc.batch_size 批量插入
+        try {
+            userRepository.saveAll(users);
+        } catch (DataIntegrityViolationException e) {
+            logger.warn("Bulk import conflicted with concurrent writes: {}", e.getMostSpecificCause().getMessage());
+            for (int row : rows) {
+                results.set(row, new UserImportResult(row, requests.get(row).getUsername(),
+                        UserImportResult.STATUS_FAILED, "Conflict while saving, please retry"));
+            }
+            return results;
+        }
+
+        for (int j = 0; j < rows.size(); j++) {
+            int row = rows.get(j);
+            usernameFilter.put(users.get(j).getUsername());
+            results.set(row, new UserImportResult(row, users.get(j).getUsername(), UserImportResult.STATUS_CREATED, null));
+        }
+        return results;
+    }
+
+    @Override
+    @Transactional
     public User findById(Long id) {
         return userRepository.findById(id).orElse(null);
     }
 
     @Override
-    public void deleteUser(Long id) {
-        userRepository.deleteById(id);
+    @Transactional
+    public UserSummary updateUser(Long id, String fullName, String role) {
+        // 未指定角色时保留当前角色
+        if (role == null) {
+            return userRepository.updateFullName(id, fullName) > 0 ? userRepository.findSummaryById(id) : null;
+        }
+        String normalizedRole = role.toLowerCase();
+        if (userRepository.updateFullNameIfRoleUnchanged(id, fullName, normalizedRole) > 0) {
+            return userRepository.findSummaryById(id);
+        }
+        // 用户不存在或角色发生变化
+        if (userRepository.updateProfileAndRevokeTokens(id, fullName, normalizedRole) == 0) {
+            return null;
+        }
+        revocationRegistry.update(id, userRepository.findTokenVersionById(id));
+        return userRepository.findSummaryById(id);
+    }
+
+    @Override
+    @Transactional
+    public boolean deleteUser(Long id) {
+        if (userRepository.deleteUserById(id) == 0) {
+            return false;
+        }
+        // 布隆过滤器不支持删除, 下次重建前注册该用户名仍会多一次查重查询.
+        // 其他实例通过删除触发器写入的墓碑在下次同步时吊销该用户的令牌
+        revocationRegistry.update(id, Integer.MAX_VALUE);
+        return true;
     }
 
     @Override
-    public void changePassword(String username, String oldPassword, String newPassword) {
+    public void revokeTokens(Long userId) {
+        if (userRepository.incrementTokenVersion(userId) > 0) {
+            revocationRegistry.update(userId, userRepository.findTokenVersionById(userId));
+        }
+    }
+
+    /**
+     * 启动时从数据库重建吊销表, 之后定期同步其他实例上的吊销和删除
+     */
+    @PostConstruct
+    @Scheduled(fixedDelayString = "${spring.security.jwt.revocation-sync-interval:60000}",
+            initialDelayString = "${spring.security.jwt.revocation-sync-interval:60000}")
+    public void syncTokenRevocations() {
+        for (Object[] row : userRepository.findRevokedTokenVersions()) {
+            revocationRegistry.update((Long) row[0], (Integer) row[1]);
+        }
+        for (Long userId : userRepository.findDeletedUserIds()) {
+            revocationRegistry.update(userId, Integer.MAX_VALUE);
+        }
+        userRepository.deleteTombstonesOlderThan(tombstoneRetentionSeconds);
+        logger.debug("Token revocation registry synced, {} users", revocationRegistry.size());
+    }
+
+    @Override
+    public CompletableFuture<Void> changePassword(String username, String oldPassword, String newPassword) {
+        // 不经过缓存, 哈希和版本号来自同一次读取
         User user = findByUsername(username);
         if (user == null) {
             throw new UsernameNotFoundException("User not found with username: " + username);
         }
 
-        if (!passwordEncoder.matches(oldPassword, user.getPasswordHash())) {
-            throw new BadCredentialsException("Invalid old password");
-        }
+        return passwordHashingService.matches(oldPassword, user.getPasswordHash())
+                .thenCompose(matches -> {
+                    if (!matches) {
+                        throw new BadCredentialsException("Invalid old password");
+                    }
+                    return passwordHashingService.encode(newPassword);
+                })
+                .thenAccept(hash -> {
+                    // 校验旧密码时读到的版本号作为条件, 期间被修改过则放弃本次更新
+                    if (userRepository.updatePasswordHash(user.getId(), hash, user.getVersion()) == 0) {
+                        throw new ObjectOptimisticLockingFailureException(User.class, user.getId());
+                    }
+                    // 版本号条件成立说明令牌版本号也未变化, 更新后正好加一
+                    revocationRegistry.update(user.getId(), user.getTokenVersion() + 1);
+                });
+    }
 
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+    @Override
+    public CompletableFuture<Void> resetPassword(Long userId, String newPassword) {
+        return passwordHashingService.encode(newPassword)
+                .thenAccept(hash -> {
+                    if (userRepository.resetPasswordHash(userId, hash) == 0) {
+                        throw new UsernameNotFoundException("User not found with id: " + userId);
+                    }
+                    revocationRegistry.update(userId, userRepository.findTokenVersionById(userId));
+                });
     }
 
     @Override
-    public void resetPassword(Long userId, String newPassword) {
-        User user = findById(userId);
-        if (user == null) {
-            throw new UsernameNotFoundException("User not found with id: " + userId);
+    public void upgradePasswordHashIfNeeded(Long userId, String currentHash, String rawPassword) {
+        if (!passwordHashingService.upgradeEncoding(currentHash)) {
+            return;
         }
+        try {
+            passwordHashingService.encode(rawPassword)
+                    .thenAccept(hash -> {
+                        if (userRepository.replacePasswordHash(userId, currentHash, hash) > 0) {
+                            logger.info("Password hash upgraded for user id: {}", userId);
+                        }
+                    })
+                    .exceptionally(ex -> {
+                        logger.warn("Failed to upgrade password hash for user id: {}", userId, ex);
+                        return null;
+                    });
+        } catch (RejectedExecutionException e) {
+            // 哈希线程池饱和时跳过, 下次登录再升级
+            logger.debug("Password hash upgrade skipped for user id: {}, hashing executor saturated", userId);
+        }
+    }
 
-        user.setPasswordHash(passwordEncoder.encode(newPassword));
-        userRepository.save(user);
+    // 用户输入中的 LIKE 通配符按普通字符匹配
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
     }
-} 
\ No newline at end of file
+}
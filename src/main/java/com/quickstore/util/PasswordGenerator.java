@@ -1,12 +1,19 @@
 package com.quickstore.util;
 
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import com.quickstore.security.CalibratedBCryptPasswordEncoder;
 
+/**
+ * 生成与应用相同格式的密码哈希. 参数: [明文密码] [BCrypt 强度], 未指定强度时按默认目标耗时在本机校准.
+ */
 public class PasswordGenerator {
     public static void main(String[] args) {
-        BCryptPasswordEncoder encoder = new BCryptPasswordEncoder();
-        String rawPassword = "admin123";
-        String encodedPassword = encoder.encode(rawPassword);
+        String rawPassword = args.length > 0 ? args[0] : "admin123";
+        int strength = args.length > 1 ? Integer.parseInt(args[1])
+                : CalibratedBCryptPasswordEncoder.calibrate(CalibratedBCryptPasswordEncoder.DEFAULT_TARGET_MILLIS,
+                        CalibratedBCryptPasswordEncoder.DEFAULT_MIN_STRENGTH,
+                        CalibratedBCryptPasswordEncoder.DEFAULT_MAX_STRENGTH);
+        CalibratedBCryptPasswordEncoder encoder = new CalibratedBCryptPasswordEncoder(strength);
+        String encodedPassword = "{bcrypt}" + encoder.encode(rawPassword);
         System.out.println("Encoded password for '" + rawPassword + "': " + encodedPassword);
     }
-} 
\ No newline at end of file
+}
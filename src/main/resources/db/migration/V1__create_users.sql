@@ -0,0 +1,9 @@
+-- 初始表结构. 已有数据库通过 baseline-on-migrate 跳过此脚本
+CREATE TABLE IF NOT EXISTS users (
+    id            BIGSERIAL PRIMARY KEY,
+    username      VARCHAR(255) NOT NULL UNIQUE,
+    password_hash VARCHAR(255) NOT NULL,
+    full_name     VARCHAR(255),
+    role          VARCHAR(255),
+    created_at    TIMESTAMP(6)
+);
@@ -0,0 +1,6 @@
+-- User 主键改为 pooled 序列 (allocationSize = 50), 使 Hibernate 可以批量插入
+DO $$
+BEGIN
+    EXECUTE format('ALTER SEQUENCE %s INCREMENT BY 50', pg_get_serial_sequence('users', 'id'));
+END
+$$;
@@ -0,0 +1,2 @@
+-- 令牌版本号, 吊销令牌时加一
+ALTER TABLE users ADD COLUMN token_version INTEGER NOT NULL DEFAULT 0;
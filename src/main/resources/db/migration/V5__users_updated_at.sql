@@ -0,0 +1,4 @@
+-- 最后修改时间, 用于计算用户列表的 ETag
+ALTER TABLE users ADD COLUMN updated_at TIMESTAMP;
+UPDATE users SET updated_at = COALESCE(created_at, now());
+ALTER TABLE users ALTER COLUMN updated_at SET NOT NULL;
@@ -0,0 +1,11 @@
+-- 用户搜索. pg_trgm 自 PostgreSQL 13 起为可信扩展, 数据库所有者即可创建
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+-- 前缀匹配 (LIKE 'abc%') 走 B-tree 范围扫描
+CREATE INDEX IF NOT EXISTS idx_users_username_prefix ON users (lower(username) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_users_full_name_prefix ON users (lower(full_name) text_pattern_ops);
+
+-- 中间匹配 (LIKE '%abc%') 走三元组 GIN 索引. 用户表写入很少, 关闭 fastupdate,
+-- 避免查询时顺序扫描尚未合并的待处理列表
+CREATE INDEX IF NOT EXISTS idx_users_username_trgm ON users USING gin (lower(username) gin_trgm_ops) WITH (fastupdate = off);
+CREATE INDEX IF NOT EXISTS idx_users_full_name_trgm ON users USING gin (lower(full_name) gin_trgm_ops) WITH (fastupdate = off);
@@ -0,0 +1,18 @@
+-- 用户表的修改计数, 用户列表的 ETag 只读取这一行, 不再对整张表做 count/sum/max
+CREATE TABLE user_table_version (
+    id      SMALLINT PRIMARY KEY CHECK (id = 1),
+    version BIGINT   NOT NULL
+);
+INSERT INTO user_table_version (id, version) VALUES (1, 0);
+
+CREATE OR REPLACE FUNCTION bump_user_table_version() RETURNS trigger AS $$
+BEGIN
+    UPDATE user_table_version SET version = version + 1 WHERE id = 1;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 由触发器维护, 响应式版本和手工 SQL 的写入同样生效. 语句级触发, 批量导入的一条语句只加一次
+CREATE TRIGGER users_table_version
+    AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON users
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_table_version();
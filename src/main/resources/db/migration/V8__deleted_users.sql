@@ -0,0 +1,19 @@
+-- 已删除用户的墓碑. 各实例的吊销表同步读取这张表, 吊销被删除用户仍未过期的令牌;
+-- 超过刷新令牌有效期的记录由同步任务清理
+CREATE TABLE deleted_users (
+    user_id    BIGINT    PRIMARY KEY,
+    deleted_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+CREATE INDEX idx_deleted_users_deleted_at ON deleted_users (deleted_at);
+
+CREATE OR REPLACE FUNCTION record_deleted_user() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO deleted_users (user_id) VALUES (OLD.id) ON CONFLICT (user_id) DO NOTHING;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- 由触发器写入, 响应式版本删除的用户同样会被记录
+CREATE TRIGGER users_deleted
+    AFTER DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION record_deleted_user();
@@ -0,0 +1,21 @@
+-- V7 的语句级触发器对没有影响任何行的语句, 以及只修改密码哈希、令牌版本号的语句也会加一,
+-- 让所有客户端的用户列表 ETag 失效. 改为行级触发器, 只在列表返回的列变化或增删行时加一
+DROP TRIGGER IF EXISTS users_table_version ON users;
+
+CREATE TRIGGER users_table_version_insert_delete
+    AFTER INSERT OR DELETE ON users
+    FOR EACH ROW EXECUTE FUNCTION bump_user_table_version();
+
+CREATE TRIGGER users_table_version_update
+    AFTER UPDATE OF username, full_name, role, created_at ON users
+    FOR EACH ROW
+    WHEN (OLD.username IS DISTINCT FROM NEW.username
+        OR OLD.full_name IS DISTINCT FROM NEW.full_name
+        OR OLD.role IS DISTINCT FROM NEW.role
+        OR OLD.created_at IS DISTINCT FROM NEW.created_at)
+    EXECUTE FUNCTION bump_user_table_version();
+
+-- TRUNCATE 只支持语句级触发器
+CREATE TRIGGER users_table_version_truncate
+    AFTER TRUNCATE ON users
+    FOR EACH STATEMENT EXECUTE FUNCTION bump_user_table_version();